@@ -0,0 +1,121 @@
+-- Reproducible dataset for checking the main-service hot query plans.
+--
+-- Run against a database that main-service has already migrated:
+--   psql -h localhost -p 6542 -U root -d ewm -v events=1000000 -f perf/hot_paths_dataset.sql
+--
+-- Seeds 100 categories, 100000 users, the requested number of events (1M by default,
+-- a quarter of them published), 5 requests and 2 comments per event, then prints
+-- EXPLAIN (ANALYZE, BUFFERS) for the query behind each repository method that
+-- V2__hot_path_indexes.sql targets. Every plan should show an index scan on the
+-- index named by the "-- expect:" line above it rather than a sequential scan.
+--
+-- HotPathQueryPlanTest runs this script against a PostgreSQL container with a
+-- smaller dataset and fails if a plan does not use its expected index.
+
+\if :{?events}
+\else
+\set events 1000000
+\endif
+
+\timing on
+
+TRUNCATE comments, requests, compilation_event, compilations, events, locations, categories, users
+    RESTART IDENTITY CASCADE;
+
+SELECT setseed(0.42);
+
+INSERT INTO categories (name)
+SELECT 'category-' || n FROM generate_series(1, 100) AS n;
+
+INSERT INTO users (email, name)
+SELECT 'user' || n || '@ewm.test', 'user-' || n FROM generate_series(1, 100000) AS n;
+
+INSERT INTO locations (lat, lon) VALUES (55.75, 37.62);
+
+INSERT INTO events (annotation, category_id, description, created_on, published_on, event_date, location_id,
+                    initiator_id, paid, participant_limit, confirmed_requests, request_moderation, state, title)
+SELECT 'annotation of event number ' || n,
+       1 + (n % 100),
+       'description of event number ' || n,
+       now()::timestamp - interval '400 days' + n * (interval '365 days' / :events),
+       CASE WHEN n % 4 = 0 THEN now()::timestamp - interval '399 days' + n * (interval '365 days' / :events) END,
+       now()::timestamp - interval '200 days' + n * (interval '365 days' / :events),
+       1,
+       1 + floor(random() * 100000)::int,
+       n % 3 = 0,
+       (n % 5) * 10,
+       0,
+       TRUE,
+       CASE n % 4 WHEN 0 THEN 'PUBLISHED' WHEN 1 THEN 'PENDING' WHEN 2 THEN 'CANCELED' ELSE 'REJECTED' END,
+       'event ' || n
+FROM generate_series(1, :events) AS n;
+
+INSERT INTO requests (event_id, requester_id, status, created)
+SELECT e.id,
+       1 + (e.id * 7 + r * 13) % 100000,
+       CASE r WHEN 0 THEN 'CONFIRMED' WHEN 1 THEN 'REJECTED' WHEN 2 THEN 'CANCELED' ELSE 'PENDING' END,
+       e.created_on + r * interval '1 hour'
+FROM events e, generate_series(0, 4) AS r;
+
+INSERT INTO comments (text, event_id, author_id, created, state)
+SELECT 'comment ' || c || ' on event ' || e.id,
+       e.id,
+       1 + (e.id * 11 + c * 17) % 100000,
+       e.created_on + c * interval '1 day',
+       'PUBLISHED'
+FROM events e, generate_series(0, 1) AS c;
+
+VACUUM ANALYZE;
+
+\echo '=== EventRepository.findAll(makePublicPredicate), sort by event_date ==='
+-- expect: idx_events_state_event_date
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM events
+WHERE state = 'PUBLISHED' AND event_date > now()::timestamp
+ORDER BY event_date
+LIMIT 10;
+
+\echo '=== EventRepository.findAll(makePublicPredicate), categories and paid ==='
+-- expect: idx_events_published_category_event_date
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM events
+WHERE state = 'PUBLISHED' AND category_id IN (3, 7) AND paid = TRUE
+  AND event_date BETWEEN now()::timestamp AND now()::timestamp + interval '30 days'
+LIMIT 10;
+
+\echo '=== EventRepository.findAll(makeAdminPredicate), states and range ==='
+-- expect: idx_events_state_event_date
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM events
+WHERE state IN ('PENDING', 'REJECTED')
+  AND event_date BETWEEN now()::timestamp AND now()::timestamp + interval '1 day'
+LIMIT 10;
+
+\echo '=== EventRepository.findByInitiatorId ==='
+-- expect: idx_events_initiator_id
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM events WHERE initiator_id = 4242 LIMIT 10;
+
+\echo '=== RequestRepository.countByEventIdAndStatus ==='
+-- expect: idx_requests_event_id_status
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM requests WHERE event_id = 4242 AND status = 'CONFIRMED';
+
+\echo '=== RequestRepository.findAllByRequesterId ==='
+-- expect: idx_requests_requester_id
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM requests WHERE requester_id = 4242;
+
+\echo '=== CommentRepository.findAll(makeCommentPredicate), author and range ==='
+-- expect: idx_comments_author_id_created
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM comments
+WHERE author_id = 4242 AND created >= now()::timestamp - interval '200 days'
+LIMIT 10;
+
+\echo '=== CommentRepository.findAll, event and range ==='
+-- expect: idx_comments_event_id_created
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM comments
+WHERE event_id = 4242 AND created <= now()::timestamp
+LIMIT 10;
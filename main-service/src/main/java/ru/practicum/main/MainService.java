@@ -2,7 +2,12 @@ package ru.practicum.main;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
 @SpringBootApplication(scanBasePackages = {"ru.practicum.main", "ru.practicum.client"})
 public class MainService {
     public static void main(String[] args) {
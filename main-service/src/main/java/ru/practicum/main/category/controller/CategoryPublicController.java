@@ -2,6 +2,7 @@ package ru.practicum.main.category.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,7 +11,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.main.category.dto.CategoryDto;
 import ru.practicum.main.category.service.CategoryService;
-import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 
 import javax.validation.constraints.Min;
 import java.util.List;
@@ -23,16 +24,16 @@ public class CategoryPublicController {
     private final CategoryService categoryService;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<CategoryDto> getAllCategory(
+    public ResponseEntity<List<CategoryDto>> getAllCategory(
             @RequestParam(defaultValue = "0") @Min(0) int from,
-            @RequestParam(defaultValue = "10") @Min(1) int size) {
-        return categoryService.getAllCategoryViaPublic(new OffsetPageRequest(from, size));
+            @RequestParam(defaultValue = "10") @Min(1) int size,
+            @RequestParam(required = false) String cursor) {
+        return categoryService.getAllCategoryViaPublic(from, size, PageCursor.decode(cursor)).toResponse();
     }
 
     @GetMapping("/{catId}")
     @ResponseStatus(HttpStatus.OK)
     public CategoryDto getCategoryById(@PathVariable Long catId) {
-        return categoryService.getCategoryByIdViaPublic(catId);
+        return categoryService.getCategoryById(catId);
     }
 }
@@ -21,6 +21,13 @@ public class CategoryMapper {
                 .name(newCategoryDto.getName())
                 .build();
     }
+
+    public Category toCategory(CategoryDto categoryDto) {
+        return Category.builder()
+                .id(categoryDto.getId())
+                .name(categoryDto.getName())
+                .build();
+    }
 }
 
 
@@ -1,11 +1,10 @@
 package ru.practicum.main.category.service;
 
-import org.springframework.data.domain.Pageable;
 import ru.practicum.main.category.dto.CategoryDto;
 import ru.practicum.main.category.dto.NewCategoryDto;
-import ru.practicum.main.category.model.Category;
+import ru.practicum.main.util.KeysetPage;
+import ru.practicum.main.util.PageCursor;
 
-import java.util.List;
 
 public interface CategoryService {
 
@@ -15,10 +14,8 @@ public interface CategoryService {
 
     CategoryDto patchCategoryViaAdmin(CategoryDto categoryDto, Long catId);
 
-    Category getCategoryById(Long catId);
+    CategoryDto getCategoryById(Long catId);
 
-    List<CategoryDto> getAllCategoryViaPublic(Pageable page);
-
-    CategoryDto getCategoryByIdViaPublic(Long catId);
+    KeysetPage<CategoryDto> getAllCategoryViaPublic(int from, int size, PageCursor cursor);
 
 }
@@ -1,7 +1,9 @@
 package ru.practicum.main.category.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main.category.dto.CategoryDto;
@@ -10,8 +12,12 @@ import ru.practicum.main.category.mapper.CategoryMapper;
 import ru.practicum.main.category.model.Category;
 import ru.practicum.main.category.repository.CategoryRepository;
 import ru.practicum.main.exeption.NotFoundException;
+import ru.practicum.main.util.KeysetPage;
+import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -29,6 +35,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Transactional
     @Override
+    @CacheEvict(cacheNames = "categories", key = "#catId")
     public void deleteCategoryViaAdminById(Long catId) {
         getCategoryById(catId);
         categoryRepository.deleteById(catId);
@@ -36,6 +43,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Transactional
     @Override
+    @CacheEvict(cacheNames = "categories", key = "#catId")
     public CategoryDto patchCategoryViaAdmin(CategoryDto categoryDto, Long catId) {
         Category category = categoryRepository.getReferenceById(catId);
         if (categoryDto.getName() != null) {
@@ -46,18 +54,21 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
-    public Category getCategoryById(Long catId) {
+    @Cacheable(cacheNames = "categories", key = "#catId")
+    public CategoryDto getCategoryById(Long catId) {
         return categoryRepository.findById(catId)
+                .map(CategoryMapper::toCategoryDto)
                 .orElseThrow(() -> new NotFoundException(String.format("Category with id=%d was not found", catId)));
     }
 
     @Override
-    public List<CategoryDto> getAllCategoryViaPublic(Pageable page) {
-        return categoryRepository.findAll(page).map(CategoryMapper::toCategoryDto).getContent();
-    }
+    public KeysetPage<CategoryDto> getAllCategoryViaPublic(int from, int size, PageCursor cursor) {
+        OffsetPageRequest page = OffsetPageRequest.of(from, size, Sort.by("id"), cursor);
+        List<Category> categories = cursor == null
+                ? categoryRepository.findAll(page).getContent()
+                : categoryRepository.findAllByIdGreaterThan(cursor.getId(), page);
 
-    @Override
-    public CategoryDto getCategoryByIdViaPublic(Long catId) {
-        return CategoryMapper.toCategoryDto(getCategoryById(catId));
+        return KeysetPage.of(categories, size, category -> PageCursor.of(category.getId()),
+                categories.stream().map(CategoryMapper::toCategoryDto).collect(Collectors.toList()));
     }
 }
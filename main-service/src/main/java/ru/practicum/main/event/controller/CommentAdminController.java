@@ -1,15 +1,15 @@
 package ru.practicum.main.event.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.main.event.dto.CommentDtoIn;
 import ru.practicum.main.event.dto.CommentFullDto;
 import ru.practicum.main.event.service.CommentService;
 import ru.practicum.main.util.DTFormatter;
-import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -39,21 +39,21 @@ public class CommentAdminController {
     }
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<CommentFullDto> getAllCommentsViaAdmin(
+    public ResponseEntity<List<CommentFullDto>> getAllCommentsViaAdmin(
             @RequestParam(required = false) Long eventId,
             @RequestParam(required = false) Long authorId,
             @RequestParam(defaultValue = "") String text,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") @Min(0) int from,
-            @RequestParam(defaultValue = "10") @Min(1) int size) {
+            @RequestParam(defaultValue = "10") @Min(1) int size,
+            @RequestParam(required = false) String cursor) {
         return commentService.getAllCommentsViaAdmin(
                 eventId,
                 authorId,
                 text,
                 rangeStart, rangeEnd,
-                new OffsetPageRequest(from, size, Sort.by("created").descending()));
+                from, size, PageCursor.decode(cursor)).toResponse();
     }
 
     @DeleteMapping("/{commentId}")
@@ -1,14 +1,14 @@
 package ru.practicum.main.event.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.main.event.dto.CommentDto;
 import ru.practicum.main.event.service.CommentService;
 import ru.practicum.main.util.DTFormatter;
-import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 
 import javax.validation.constraints.Min;
 import java.time.LocalDateTime;
@@ -22,21 +22,21 @@ public class CommentPrivateController {
     private final CommentService commentService;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<CommentDto> getAllOwnerComments(
+    public ResponseEntity<List<CommentDto>> getAllOwnerComments(
             @PathVariable Long userId,
             @RequestParam(required = false) Long eventId,
             @RequestParam(defaultValue = "") String text,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") @Min(0) int from,
-            @RequestParam(defaultValue = "10") @Min(1) int size) {
+            @RequestParam(defaultValue = "10") @Min(1) int size,
+            @RequestParam(required = false) String cursor) {
         return commentService.getAllOwnerCommentsViaPrivate(
                 userId,
                 eventId,
                 text,
                 rangeStart, rangeEnd,
-                new OffsetPageRequest(from, size, Sort.by("created").descending()));
+                from, size, PageCursor.decode(cursor)).toResponse();
     }
 
     @GetMapping("/{commentId}")
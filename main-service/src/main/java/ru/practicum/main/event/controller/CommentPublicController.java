@@ -1,14 +1,14 @@
 package ru.practicum.main.event.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.main.event.dto.CommentDto;
 import ru.practicum.main.event.service.CommentService;
 import ru.practicum.main.util.DTFormatter;
-import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 
 import javax.validation.constraints.Min;
 import java.time.LocalDateTime;
@@ -23,21 +23,21 @@ public class CommentPublicController {
 
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<CommentDto> getAllCommentsViaPublic(
+    public ResponseEntity<List<CommentDto>> getAllCommentsViaPublic(
             @RequestParam(required = false) Long eventId,
             @RequestParam(defaultValue = "") String text,
             @RequestParam(defaultValue = "") String authorName,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") @Min(0) int from,
-            @RequestParam(defaultValue = "10") @Min(1) int size) {
+            @RequestParam(defaultValue = "10") @Min(1) int size,
+            @RequestParam(required = false) String cursor) {
         return commentService.getAllCommentsViaPublic(
                 eventId,
                 text,
                 authorName,
                 rangeStart, rangeEnd,
-                new OffsetPageRequest(from, size, Sort.by("created").descending()));
+                from, size, PageCursor.decode(cursor)).toResponse();
     }
 
     @GetMapping("/{commentId}")
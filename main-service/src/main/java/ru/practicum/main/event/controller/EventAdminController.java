@@ -3,6 +3,7 @@ package ru.practicum.main.event.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,6 +18,7 @@ import ru.practicum.main.event.dto.EventAdminRequestDto;
 import ru.practicum.main.event.enums.EventState;
 import ru.practicum.main.event.service.EventService;
 import ru.practicum.main.util.DTFormatter;
+import ru.practicum.main.util.PageCursor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -31,15 +33,15 @@ public class EventAdminController {
     private final EventService eventService;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<EventFullDto> getEventsViaAdmin(
+    public ResponseEntity<List<EventFullDto>> getEventsViaAdmin(
             @RequestParam(required = false) List<Long> users,
             @RequestParam(required = false) List<EventState> states,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeStart,
             @RequestParam(required = false) @DateTimeFormat(pattern = DTFormatter.DT_FORMAT) LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") @Min(0) int from,
-            @RequestParam(defaultValue = "10") @Min(1) int size) {
+            @RequestParam(defaultValue = "10") @Min(1) int size,
+            @RequestParam(required = false) String cursor) {
 
         return eventService.getEventsViaAdmin(
                 EventRequest.ofAdmin(
@@ -49,7 +51,8 @@ public class EventAdminController {
                         rangeStart,
                         rangeEnd,
                         from,
-                        size));
+                        size,
+                        PageCursor.decode(cursor))).toResponse();
     }
 
     @PatchMapping("/{eventId}")
@@ -3,6 +3,7 @@ package ru.practicum.main.event.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,10 +16,10 @@ import ru.practicum.main.event.dto.EventRequest;
 import ru.practicum.main.event.enums.EventSortType;
 import ru.practicum.main.event.service.EventService;
 import ru.practicum.main.util.DTFormatter;
+import ru.practicum.main.util.PageCursor;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
-import java.util.Collection;
 import java.util.List;
 
 @RestController
@@ -29,8 +30,7 @@ public class EventPublicController {
     private final EventService eventService;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<EventShortDto> getAllEventsByPublic(
+    public ResponseEntity<List<EventShortDto>> getAllEventsByPublic(
             @RequestParam(defaultValue = "") String text,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) Boolean paid,
@@ -40,6 +40,7 @@ public class EventPublicController {
             @RequestParam(required = false) EventSortType sort,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest request) {
         return eventService.getAllEventsViaPublic(
                 EventRequest.of(
@@ -51,7 +52,8 @@ public class EventPublicController {
                         rangeEnd,
                         onlyAvailable,
                         sort,
-                        from, size));
+                        from, size,
+                        PageCursor.decode(cursor))).toResponse();
     }
 
 
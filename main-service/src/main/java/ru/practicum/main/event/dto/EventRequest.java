@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import ru.practicum.main.event.enums.EventSortType;
 import ru.practicum.main.event.enums.EventState;
+import ru.practicum.main.util.PageCursor;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
@@ -26,6 +27,7 @@ public class EventRequest {
     private EventSortType sort;
     private Integer from;
     private Integer size;
+    private PageCursor cursor;
 
     public static EventRequest of(
             HttpServletRequest request,
@@ -37,7 +39,8 @@ public class EventRequest {
             boolean onlyAvailable,
             EventSortType sort,
             Integer from,
-            Integer size) {
+            Integer size,
+            PageCursor cursor) {
         EventRequest eventRequest = new EventRequest();
         eventRequest.setRequest(request);
         eventRequest.setFrom(from);
@@ -49,6 +52,7 @@ public class EventRequest {
         eventRequest.setRangeStart(rangeStart);
         eventRequest.setCategories(categories);
         eventRequest.setSort(sort);
+        eventRequest.setCursor(cursor);
 
         return eventRequest;
     }
@@ -66,6 +70,7 @@ public class EventRequest {
         private LocalDateTime rangeEnd;
         private Integer from;
         private Integer size;
+        private PageCursor cursor;
     }
 
     public static AdminRequest ofAdmin(
@@ -75,7 +80,8 @@ public class EventRequest {
             LocalDateTime rangeStart,
             LocalDateTime rangeEnd,
             Integer from,
-            Integer size) {
+            Integer size,
+            PageCursor cursor) {
         AdminRequest adminRequest = new AdminRequest();
         adminRequest.setUsers(users);
         adminRequest.setStates(states);
@@ -84,6 +90,7 @@ public class EventRequest {
         adminRequest.setRangeEnd(rangeEnd);
         adminRequest.setFrom(from);
         adminRequest.setSize(size);
+        adminRequest.setCursor(cursor);
 
         return adminRequest;
     }
@@ -2,5 +2,5 @@ package ru.practicum.main.event.enums;
 
 public enum EventSortType {
 
-    EVENT_DATE, VIEWS
+    EVENT_DATE, VIEWS, RELEVANCE
 }
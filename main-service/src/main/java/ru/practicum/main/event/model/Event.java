@@ -22,6 +22,8 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import java.time.LocalDateTime;
@@ -32,12 +34,18 @@ import java.util.Set;
 @Setter
 @Builder
 @Entity
-
+@NamedEntityGraph(name = Event.DETAILS_GRAPH, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("initiator"),
+        @NamedAttributeNode("location")
+})
 @Table(name = "events")
 @AllArgsConstructor
 @NoArgsConstructor
 public class Event {
 
+    public static final String DETAILS_GRAPH = "Event.details";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -93,7 +101,10 @@ public class Event {
     @OneToMany(mappedBy = "event", fetch = FetchType.LAZY)
     private Set<Request> requests;
 
-    @Column(name = "confirmed_requests")
+    @Column(name = "confirmed_requests", updatable = false)
     private Integer confirmedRequests;
 
+    @Column(insertable = false, updatable = false)
+    private long views;
+
 }
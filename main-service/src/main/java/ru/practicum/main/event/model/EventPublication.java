@@ -0,0 +1,10 @@
+package ru.practicum.main.event.model;
+
+import java.time.LocalDateTime;
+
+public interface EventPublication {
+
+    Long getId();
+
+    LocalDateTime getPublishedOn();
+}
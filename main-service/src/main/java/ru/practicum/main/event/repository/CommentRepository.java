@@ -6,7 +6,8 @@ import ru.practicum.main.event.model.Comment;
 
 import java.util.Optional;
 
-public interface CommentRepository extends JpaRepository<Comment, Long>, QuerydslPredicateExecutor<Comment> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, QuerydslPredicateExecutor<Comment>,
+        CommentSliceRepository {
 
     Optional<Comment> findByIdAndAuthorId(Long id, Long authorId);
 }
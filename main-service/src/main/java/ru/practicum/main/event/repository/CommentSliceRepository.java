@@ -0,0 +1,12 @@
+package ru.practicum.main.event.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.main.event.model.Comment;
+
+import java.util.List;
+
+public interface CommentSliceRepository {
+
+    List<Comment> findSlice(Predicate predicate, Pageable pageable);
+}
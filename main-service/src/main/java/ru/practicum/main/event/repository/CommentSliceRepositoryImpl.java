@@ -0,0 +1,13 @@
+package ru.practicum.main.event.repository;
+
+import ru.practicum.main.event.model.Comment;
+import ru.practicum.main.event.model.QComment;
+import ru.practicum.main.util.SliceQuerydslRepositorySupport;
+
+public class CommentSliceRepositoryImpl extends SliceQuerydslRepositorySupport<Comment>
+        implements CommentSliceRepository {
+
+    public CommentSliceRepositoryImpl() {
+        super(Comment.class, QComment.comment, null);
+    }
+}
@@ -1,25 +1,56 @@
 package ru.practicum.main.event.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.main.event.enums.EventState;
 import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.model.EventPublication;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventSliceRepository {
 
+    @EntityGraph(Event.DETAILS_GRAPH)
     Optional<Event> findByIdAndState(Long id, EventState state);
 
+    @EntityGraph(Event.DETAILS_GRAPH)
     List<Event> findAllByIdIn(Set<Long> ids);
 
+    @EntityGraph(Event.DETAILS_GRAPH)
     List<Event> findByInitiatorId(Long initiatorId, Pageable page);
 
+    @EntityGraph(Event.DETAILS_GRAPH)
     Optional<Event> findByIdAndInitiatorId(Long id, Long initiatorId);
 
+    @Query("select e.id as id, e.publishedOn as publishedOn from Event e " +
+            "where e.id in :ids and e.publishedOn is not null")
+    List<EventPublication> findPublications(@Param("ids") Set<Long> ids);
+
+    @Query("select e.id from Event e where e.state = :state")
+    List<Long> findIdsByState(@Param("state") EventState state);
+
+    @Modifying
+    @Query("update Event e set e.views = :views where e.id = :id")
+    int updateViews(@Param("id") Long id, @Param("views") long views);
+
+    @Modifying
+    @Query("update Event e set e.confirmedRequests = e.confirmedRequests + :count " +
+            "where e.id = :id and (e.participantLimit = 0 or e.confirmedRequests + :count <= e.participantLimit)")
+    int reserveParticipants(@Param("id") Long id, @Param("count") int count);
+
+    @Modifying
+    @Query("update Event e set e.confirmedRequests = e.confirmedRequests - :count " +
+            "where e.id = :id and e.confirmedRequests >= :count")
+    int releaseParticipants(@Param("id") Long id, @Param("count") int count);
+
 }
@@ -0,0 +1,12 @@
+package ru.practicum.main.event.repository;
+
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.model.QEvent;
+import ru.practicum.main.util.SliceQuerydslRepositorySupport;
+
+public class EventSliceRepositoryImpl extends SliceQuerydslRepositorySupport<Event> implements EventSliceRepository {
+
+    public EventSliceRepositoryImpl() {
+        super(Event.class, QEvent.event, Event.DETAILS_GRAPH);
+    }
+}
@@ -1,11 +1,13 @@
 package ru.practicum.main.event.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.main.event.enums.RequestStatus;
 import ru.practicum.main.event.model.Request;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<Request, Long> {
@@ -21,4 +23,11 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
             "left join User u on u.id = e.initiator.id " +
             "where u.id = :userId and r.event.id = :eventId ")
     List<Request> findAllByEventAndOwner(@Param("userId") Long userId, @Param("eventId") Long eventId);
+
+    @Modifying
+    @Query("update Request r set r.status = :to where r.id in :ids and r.status = :from")
+    int updateStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("from") RequestStatus from,
+            @Param("to") RequestStatus to);
 }
@@ -1,12 +1,12 @@
 package ru.practicum.main.event.service;
 
-import org.springframework.data.domain.Pageable;
 import ru.practicum.main.event.dto.CommentDto;
 import ru.practicum.main.event.dto.CommentDtoIn;
 import ru.practicum.main.event.dto.CommentFullDto;
+import ru.practicum.main.util.KeysetPage;
+import ru.practicum.main.util.PageCursor;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 public interface CommentService {
 
@@ -18,20 +18,24 @@ public interface CommentService {
 
     CommentDto getCommentViaPrivate(Long authorId, Long commentId);
 
-    List<CommentDto> getAllOwnerCommentsViaPrivate(
+    KeysetPage<CommentDto> getAllOwnerCommentsViaPrivate(
             Long authorId,
             Long eventId,
             String text,
             LocalDateTime rangeStart,
             LocalDateTime rangeEnd,
-            Pageable page);
+            int from,
+            int size,
+            PageCursor cursor);
 
-    List<CommentDto> getAllCommentsViaPublic(
+    KeysetPage<CommentDto> getAllCommentsViaPublic(
             Long eventId,
             String text,
             String authorName,
             LocalDateTime rangeStart, LocalDateTime rangeEnd,
-            Pageable page);
+            int from,
+            int size,
+            PageCursor cursor);
 
     CommentDto getCommentByIdViaPublic(Long commentId);
 
@@ -39,12 +43,14 @@ public interface CommentService {
 
     CommentFullDto getCommentViaAdmin(Long commentId);
 
-    List<CommentFullDto> getAllCommentsViaAdmin(
+    KeysetPage<CommentFullDto> getAllCommentsViaAdmin(
             Long eventId,
             Long authorId,
             String text,
             LocalDateTime rangeStart, LocalDateTime rangeEnd,
-            Pageable page);
+            int from,
+            int size,
+            PageCursor cursor);
 
     void deleteCommentViaAdmin(Long commentId);
 }
@@ -1,8 +1,9 @@
 package ru.practicum.main.event.service;
 
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.main.event.dto.CommentDto;
@@ -18,8 +19,12 @@ import ru.practicum.main.event.repository.CommentRepository;
 import ru.practicum.main.exeption.BadRequest;
 import ru.practicum.main.exeption.ConflictException;
 import ru.practicum.main.exeption.NotFoundException;
+import ru.practicum.main.user.mapper.UserMapper;
 import ru.practicum.main.user.model.User;
 import ru.practicum.main.user.service.UserService;
+import ru.practicum.main.util.KeysetPage;
+import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 import ru.practicum.main.util.QPredicates;
 
 import java.time.LocalDateTime;
@@ -40,7 +45,7 @@ public class CommentServiceImpl implements CommentService {
     @Override
     @Transactional
     public CommentDto postCommentViaPrivate(CommentDtoIn commentDtoIn, Long userId, Long eventId) {
-        User user = userService.getUserById(userId);
+        User user = UserMapper.toUser(userService.getUserById(userId));
         Event event = eventService.getEventById(eventId);
 
         if (!EventState.PUBLISHED.equals(event.getState())) {
@@ -87,45 +92,40 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    public List<CommentDto> getAllOwnerCommentsViaPrivate(
+    public KeysetPage<CommentDto> getAllOwnerCommentsViaPrivate(
             Long authorId,
             Long eventId,
             String text,
             LocalDateTime rangeStart, LocalDateTime rangeEnd,
-            Pageable page) {
+            int from,
+            int size,
+            PageCursor cursor) {
 
         checkRangeTime(rangeStart, rangeEnd);
         userService.getUserById(authorId);
         Predicate pred = makeCommentPredicate(authorId, eventId, text, rangeStart, rangeEnd);
 
-        return commentRepository.findAll(pred, page)
-                .stream()
-                .map(CommentMapper::toCommentDto)
-                .collect(Collectors.toList());
+        List<Comment> comments = findComments(pred, from, size, cursor);
+        return KeysetPage.of(comments, size, this::toCursor,
+                comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList()));
     }
 
     @Override
-    public List<CommentDto> getAllCommentsViaPublic(
+    public KeysetPage<CommentDto> getAllCommentsViaPublic(
             Long eventId,
             String text,
             String authorName,
             LocalDateTime rangeStart, LocalDateTime rangeEnd,
-            Pageable page) {
+            int from,
+            int size,
+            PageCursor cursor) {
 
         checkRangeTime(rangeStart, rangeEnd);
         Predicate pred = makePublicCommentPredicate(eventId, text, authorName, rangeStart, rangeEnd);
 
-        if (pred != null) {
-            return commentRepository.findAll(pred, page)
-                    .stream()
-                    .map(CommentMapper::toCommentDto)
-                    .collect(Collectors.toList());
-        }
-
-        return commentRepository.findAll(page)
-                .stream()
-                .map(CommentMapper::toCommentDto)
-                .collect(Collectors.toList());
+        List<Comment> comments = findComments(pred, from, size, cursor);
+        return KeysetPage.of(comments, size, this::toCursor,
+                comments.stream().map(CommentMapper::toCommentDto).collect(Collectors.toList()));
     }
 
     @Override
@@ -153,26 +153,21 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    public List<CommentFullDto> getAllCommentsViaAdmin(
+    public KeysetPage<CommentFullDto> getAllCommentsViaAdmin(
             Long eventId,
             Long authorId,
             String text,
             LocalDateTime rangeStart, LocalDateTime rangeEnd,
-            Pageable page) {
+            int from,
+            int size,
+            PageCursor cursor) {
 
         checkRangeTime(rangeStart, rangeEnd);
         Predicate pred = makeCommentPredicate(authorId, eventId, text, rangeStart, rangeEnd);
 
-        if (pred != null) {
-            return commentRepository.findAll(pred, page)
-                    .stream()
-                    .map(CommentMapper::toCommentFullDto)
-                    .collect(Collectors.toList());
-        }
-        return commentRepository.findAll(page)
-                .stream()
-                .map(CommentMapper::toCommentFullDto)
-                .collect(Collectors.toList());
+        List<Comment> comments = findComments(pred, from, size, cursor);
+        return KeysetPage.of(comments, size, this::toCursor,
+                comments.stream().map(CommentMapper::toCommentFullDto).collect(Collectors.toList()));
     }
 
     @Override
@@ -182,6 +177,20 @@ public class CommentServiceImpl implements CommentService {
         commentRepository.deleteById(commentId);
     }
 
+    private List<Comment> findComments(Predicate pred, int from, int size, PageCursor cursor) {
+        QComment comment = QComment.comment;
+        OffsetPageRequest page = OffsetPageRequest.of(
+                from, size, Sort.by(Sort.Direction.DESC, "created", "id"), cursor);
+        Predicate keyset = ExpressionUtils.allOf(
+                pred, cursor != null ? cursor.after(comment.created, comment.id, Sort.Direction.DESC) : null);
+
+        return commentRepository.findSlice(keyset, page);
+    }
+
+    private PageCursor toCursor(Comment comment) {
+        return PageCursor.of(comment.getCreated(), comment.getId());
+    }
+
     private Predicate makePublicCommentPredicate(
             Long eventId,
             String text,
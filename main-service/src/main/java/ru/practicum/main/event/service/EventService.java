@@ -8,9 +8,9 @@ import ru.practicum.main.event.dto.NewEventDto;
 import ru.practicum.main.event.dto.EventAdminRequestDto;
 import ru.practicum.main.event.dto.EventUserRequestDto;
 import ru.practicum.main.event.model.Event;
+import ru.practicum.main.util.KeysetPage;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -20,7 +20,7 @@ public interface EventService {
 
     Event getEventById(Long eventId);
 
-    Collection<EventShortDto> getAllEventsViaPublic(EventRequest req);
+    KeysetPage<EventShortDto> getAllEventsViaPublic(EventRequest req);
 
     EventFullDto getEventByIdViaPublic(Long id, HttpServletRequest requestURI);
 
@@ -28,7 +28,7 @@ public interface EventService {
 
     List<Event> getEventsByIds(Set<Long> events);
 
-    List<EventFullDto> getEventsViaAdmin(EventRequest.AdminRequest adminReq);
+    KeysetPage<EventFullDto> getEventsViaAdmin(EventRequest.AdminRequest adminReq);
 
     EventFullDto patchEventViaPrivet(
             EventUserRequestDto eventUserRequestDto,
@@ -1,12 +1,20 @@
 package ru.practicum.main.event.service;
 
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.querydsl.QSort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.common.model.ViewStats;
+import ru.practicum.client.exception.StatisticUnavailableException;
+import ru.practicum.main.category.mapper.CategoryMapper;
 import ru.practicum.main.category.model.Category;
 import ru.practicum.main.category.service.CategoryService;
 import ru.practicum.main.event.dto.EventFullDto;
@@ -30,21 +38,26 @@ import ru.practicum.main.exeption.ConflictException;
 import ru.practicum.main.exeption.BadRequest;
 import ru.practicum.main.exeption.NotFoundException;
 import ru.practicum.main.statistic.StatsService;
+import ru.practicum.main.user.mapper.UserMapper;
 import ru.practicum.main.user.model.User;
 import ru.practicum.main.user.service.UserService;
+import ru.practicum.main.util.FullTextPostgreSQLDialect;
+import ru.practicum.main.util.KeysetPage;
 import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 import ru.practicum.main.util.QPredicates;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
@@ -60,14 +73,17 @@ public class EventServiceImpl implements EventService {
 
     private final StatsService statsService;
 
+    @Value("${app.events.full-text-search:false}")
+    private boolean fullTextSearch;
+
 
     @Override
     @Transactional
     public EventFullDto createEventByUser(NewEventDto newEventDto, Long userId) {
         checkNewEventDate(newEventDto.getEventDate(), LocalDateTime.now().plusHours(2));
 
-        User user = userService.getUserById(userId);
-        Category category = categoryService.getCategoryById(newEventDto.getCategory());
+        User user = UserMapper.toUser(userService.getUserById(userId));
+        Category category = CategoryMapper.toCategory(categoryService.getCategoryById(newEventDto.getCategory()));
         Location location = getOrSaveLocation(newEventDto.getLocation());
         Event event = eventRepository.save(EventMapper.toEvent(newEventDto, category, user, location));
 
@@ -82,36 +98,59 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public List<EventShortDto> getAllEventsViaPublic(EventRequest req) {
+    public KeysetPage<EventShortDto> getAllEventsViaPublic(EventRequest req) {
         checkRangeTime(req.getRangeStart(), req.getRangeEnd());
 
-        List<Event> events;
-        Map<Long, Long> views;
+        QEvent entity = QEvent.event;
+        PageCursor cursor = req.getCursor();
         Predicate pred = makePublicPredicate(req);
 
-        if (EventSortType.EVENT_DATE.equals(req.getSort())) {
-            OffsetPageRequest pageRequest = new OffsetPageRequest(req.getFrom(), req.getSize(), Sort.by("eventDate"));
-            events = eventRepository.findAll(pred, pageRequest).getContent();
-            views = getViews(events);
-            statsService.addHit(req.getRequest());
-            return events.stream().map(event ->
-                    EventMapper.toEvenShortDto(event, views.getOrDefault(event.getId(), 0L)))
-                    .collect(Collectors.toList());
+        if (EventSortType.VIEWS.equals(req.getSort())) {
+            checkCursorUnsupported(cursor, req.getSort());
+            CompletableFuture<Void> hit = statsService.addHitAsync(req.getRequest());
+            OffsetPageRequest pageRequest = new OffsetPageRequest(req.getFrom(), req.getSize(),
+                    Sort.by(Sort.Direction.DESC, "views").and(Sort.by("id")));
+            List<Event> events = eventRepository.findSlice(pred, pageRequest);
+            // The page is ordered by the synced views column, which may lag by one sync interval, but shows the
+            // same live counts as every other sort.
+            CompletableFuture<Map<Long, Long>> pageViews = getViewsAsync(events);
+            hit.join();
+            Map<Long, Long> views = pageViews.join();
+            return KeysetPage.of(events.stream()
+                    .map(event -> EventMapper.toEvenShortDto(event, views.getOrDefault(event.getId(), 0L)))
+                    .collect(Collectors.toList()));
+        }
+
+        Sort sort = makePublicSort(req);
+        boolean byRelevance = sort instanceof QSort;
+        boolean byEventDate = !byRelevance && req.getSort() != null;
+
+        if (cursor != null) {
+            if (byRelevance) {
+                checkCursorUnsupported(cursor, req.getSort());
+            }
+            pred = ExpressionUtils.allOf(pred, byEventDate
+                    ? cursor.after(entity.eventDate, entity.id, Sort.Direction.ASC)
+                    : cursor.after(entity.id, Sort.Direction.ASC));
         }
 
-        events = eventRepository.findAll(pred, new OffsetPageRequest(req.getFrom(), req.getSize())).getContent();
-        views = getViews(events);
-        statsService.addHit(req.getRequest());
+        CompletableFuture<Void> hit = statsService.addHitAsync(req.getRequest());
+        List<Event> events = eventRepository.findSlice(
+                pred, OffsetPageRequest.of(req.getFrom(), req.getSize(), sort, cursor));
+        CompletableFuture<Map<Long, Long>> pageViews = getViewsAsync(events);
+        hit.join();
+        Map<Long, Long> views = pageViews.join();
         List<EventShortDto> eventShortDtos = events.stream()
                 .map(event ->
                         EventMapper.toEvenShortDto(event, views.getOrDefault(event.getId(), 0L)))
                 .collect(Collectors.toList());
 
-        if (EventSortType.VIEWS.equals(req.getSort()) && !views.isEmpty()) {
-            return eventShortDtos.stream().sorted(Comparator.comparing(EventShortDto::getViews).reversed()).collect(Collectors.toList());
+        if (byRelevance) {
+            return KeysetPage.of(eventShortDtos);
         }
-
-        return eventShortDtos;
+        return KeysetPage.of(events, req.getSize(), event -> byEventDate
+                ? PageCursor.of(event.getEventDate(), event.getId())
+                : PageCursor.of(event.getId()), eventShortDtos);
     }
 
 
@@ -120,6 +159,8 @@ public class EventServiceImpl implements EventService {
         Event event = eventRepository.findByIdAndState(id, EventState.PUBLISHED)
                 .orElseThrow(() -> new NotFoundException(String.format("Event with id=%d was not found", id)));
 
+        // Views are cached before the hit, so the hit is counted into them even if it is still queued.
+        getViews(List.of(event));
         statsService.addHit(request);
         Map<Long, Long> views = getViews(List.of(event));
         return EventMapper.toEvenFullDto(event, views.getOrDefault(event.getId(), 0L));
@@ -134,30 +175,21 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public List<EventFullDto> getEventsViaAdmin(EventRequest.AdminRequest req) {
+    public KeysetPage<EventFullDto> getEventsViaAdmin(EventRequest.AdminRequest req) {
         checkRangeTime(req.getRangeStart(), req.getRangeEnd());
 
-        List<Event> events;
-        Map<Long, Long> views;
-        Predicate predicate = makeAdminPredicate(req);
+        PageCursor cursor = req.getCursor();
+        Predicate predicate = ExpressionUtils.allOf(makeAdminPredicate(req),
+                cursor != null ? cursor.after(QEvent.event.id, Sort.Direction.ASC) : null);
+        OffsetPageRequest page = OffsetPageRequest.of(req.getFrom(), req.getSize(), Sort.by("id"), cursor);
 
-        if (predicate != null) {
-            events = eventRepository.findAll(
-                    predicate, new OffsetPageRequest(req.getFrom(), req.getSize())).getContent();
-           views = getViews(events);
-            return events.stream()
-                    .map(event ->
-                            EventMapper.toEvenFullDto(event, views.getOrDefault(event.getId(), 0L)))
-                    .collect(Collectors.toList());
-        }
-
-        events = eventRepository.findAll(new OffsetPageRequest(req.getFrom(), req.getSize())).getContent();
-        views = getViews(events);
+        List<Event> events = eventRepository.findSlice(predicate, page);
+        Map<Long, Long> views = getViews(events);
 
-        return events.stream()
+        return KeysetPage.of(events, req.getSize(), event -> PageCursor.of(event.getId()), events.stream()
                 .map(event ->
                         EventMapper.toEvenFullDto(event, views.getOrDefault(event.getId(), 0L)))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -177,7 +209,8 @@ public class EventServiceImpl implements EventService {
         }
 
         if (eventUserRequestDto.getCategory() != null) {
-            event.setCategory(categoryService.getCategoryById(eventUserRequestDto.getCategory()));
+            event.setCategory(CategoryMapper.toCategory(
+                    categoryService.getCategoryById(eventUserRequestDto.getCategory())));
         }
 
         if (eventUserRequestDto.getDescription() != null) {
@@ -268,7 +301,7 @@ public class EventServiceImpl implements EventService {
         }
 
         if (eventRequest.getCategory() != null) {
-            event.setCategory(categoryService.getCategoryById(eventRequest.getCategory()));
+            event.setCategory(CategoryMapper.toCategory(categoryService.getCategoryById(eventRequest.getCategory())));
         }
 
         if (eventRequest.getEventDate() != null) {
@@ -319,37 +352,31 @@ public class EventServiceImpl implements EventService {
     }
 
     private Map<Long, Long> getViews(List<Event> events) {
-        Map<Long, Long> statsByEventId = new HashMap<>();
-
-        if (!events.iterator().hasNext()) {
-            return statsByEventId;
-        }
-
-        List<Event> publishedEvents = events.stream()
+        Map<Long, LocalDateTime> publishedOnByEventId = events.stream()
                 .filter(event -> event.getPublishedOn() != null)
-                .collect(Collectors.toList());
+                .collect(Collectors.toMap(Event::getId, Event::getPublishedOn));
 
-
-        if (publishedEvents.isEmpty()) {
-            return statsByEventId;
+        try {
+            return statsService.getEventViews(publishedOnByEventId);
+        } catch (StatisticUnavailableException e) {
+            log.debug("Serving synced views for {} events: {}", events.size(), e.getMessage());
+            return events.stream().collect(Collectors.toMap(Event::getId, Event::getViews));
         }
+    }
 
-        LocalDateTime publishedOn = publishedEvents
-                .stream()
-                .min(Comparator.comparing(Event::getPublishedOn))
-                .get().getPublishedOn();
-
-        List<String> uris = publishedEvents.stream()
-                .map(Event::getId)
-                .map(id -> "/events/" + id)
-                .collect(Collectors.toList());
-
-        List<ViewStats> stats = statsService.getStats(publishedOn, LocalDateTime.now(), uris, true);
+    private CompletableFuture<Map<Long, Long>> getViewsAsync(List<Event> events) {
+        Map<Long, LocalDateTime> publishedOnByEventId = events.stream()
+                .filter(event -> event.getPublishedOn() != null)
+                .collect(Collectors.toMap(Event::getId, Event::getPublishedOn));
 
-        statsByEventId = stats.stream()
-                .collect(Collectors.toMap(entity -> (
-                        Long.parseLong(entity.getUri().split("/")[2])), ViewStats::getHits));
-        return statsByEventId;
+        return statsService.getEventViewsAsync(publishedOnByEventId).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (!(cause instanceof StatisticUnavailableException)) {
+                throw new CompletionException(cause);
+            }
+            log.debug("Serving synced views for {} events: {}", events.size(), cause.getMessage());
+            return events.stream().collect(Collectors.toMap(Event::getId, Event::getViews));
+        });
     }
 
     @Override
@@ -383,7 +410,7 @@ public class EventServiceImpl implements EventService {
         QEvent entity = QEvent.event;
         return QPredicates.build()
                 .add(entity.state.eq(EventState.PUBLISHED))
-                .add(!req.getText().isBlank() ? entity.annotation.containsIgnoreCase(req.getText()).or(entity.description.containsIgnoreCase(req.getText())) : null)
+                .add(!req.getText().isBlank() ? makeTextPredicate(entity, req.getText()) : null)
                 .add(req.isOnlyAvailable() ? entity.confirmedRequests.lt(entity.participantLimit).or(entity.participantLimit.eq(0)) : null)
                 .add(req.getPaid() != null ? entity.paid.eq(req.getPaid()) : null)
                 .add(req.getCategories() == null || req.getCategories().isEmpty() ? null : entity.category.id.in(req.getCategories()))
@@ -393,6 +420,37 @@ public class EventServiceImpl implements EventService {
 
     }
 
+    private BooleanExpression makeTextPredicate(QEvent entity, String text) {
+        if (!fullTextSearch) {
+            return entity.annotation.containsIgnoreCase(text).or(entity.description.containsIgnoreCase(text));
+        }
+
+        return Expressions.booleanTemplate("function('" + FullTextPostgreSQLDialect.FTS_MATCH + "', {0}, {1}, {2}, {3}) = true",
+                entity.title, entity.annotation, entity.description, text);
+    }
+
+    private Sort makePublicSort(EventRequest req) {
+        if (req.getSort() == null) {
+            return Sort.by("id");
+        }
+        if (!EventSortType.RELEVANCE.equals(req.getSort()) || !fullTextSearch || req.getText().isBlank()) {
+            return Sort.by("eventDate", "id");
+        }
+
+        QEvent entity = QEvent.event;
+        NumberExpression<Double> rank = Expressions.numberTemplate(Double.class,
+                "function('" + FullTextPostgreSQLDialect.FTS_RANK + "', {0}, {1}, {2}, {3})",
+                entity.title, entity.annotation, entity.description, req.getText());
+
+        return new QSort(rank.desc(), entity.eventDate.asc());
+    }
+
+    private void checkCursorUnsupported(PageCursor cursor, EventSortType sort) {
+        if (cursor != null) {
+            throw new BadRequest(String.format("Cursor pagination is not supported for sort=%s.", sort));
+        }
+    }
+
     private Location getOrSaveLocation(LocationDto location) {
         return locationRepository.findByLatAndLon(location.getLat(), location.getLon())
                 .orElseGet(() -> locationRepository.save(LocationMapper.toLocation(location)));
@@ -0,0 +1,96 @@
+package ru.practicum.main.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.main.event.enums.EventState;
+import ru.practicum.main.event.model.EventPublication;
+import ru.practicum.main.event.repository.EventRepository;
+import ru.practicum.main.statistic.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class EventViewsSyncService {
+
+    private static final int SYNC_CHUNK_SIZE = 500;
+
+    private final EventRepository eventRepository;
+
+    private final StatsService statsService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long settleNanos;
+
+    private final boolean syncOnStartup;
+
+    public EventViewsSyncService(
+            EventRepository eventRepository,
+            StatsService statsService,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.views.sync.settle-ms:2000}") long settleMs,
+            @Value("${app.views.sync.on-startup:true}") boolean syncOnStartup) {
+        this.eventRepository = eventRepository;
+        this.statsService = statsService;
+        this.transactionTemplate = transactionTemplate;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMs);
+        this.syncOnStartup = syncOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void markPublishedEvents() {
+        if (syncOnStartup) {
+            statsService.markViewed(eventRepository.findIdsByState(EventState.PUBLISHED));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.sync.interval-ms:5000}")
+    public void syncViews() {
+        Map<Long, Long> viewed = statsService.getViewedEvents();
+        if (viewed.isEmpty()) {
+            return;
+        }
+
+        List<Long> eventIds = new ArrayList<>(viewed.keySet());
+        for (int from = 0; from < eventIds.size(); from += SYNC_CHUNK_SIZE) {
+            List<Long> chunk = eventIds.subList(from, Math.min(from + SYNC_CHUNK_SIZE, eventIds.size()));
+            try {
+                syncChunk(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Failed to sync views of {} events, will retry: {}", chunk.size(), e.getMessage());
+                return;
+            }
+
+            long now = System.nanoTime();
+            for (Long eventId : chunk) {
+                Long viewedAt = viewed.get(eventId);
+                if (now - viewedAt >= settleNanos) {
+                    statsService.markSynced(eventId, viewedAt);
+                }
+            }
+        }
+    }
+
+    private void syncChunk(List<Long> eventIds) {
+        Map<Long, LocalDateTime> publishedOnByEventId = new HashMap<>();
+        for (EventPublication publication : eventRepository.findPublications(new HashSet<>(eventIds))) {
+            publishedOnByEventId.put(publication.getId(), publication.getPublishedOn());
+        }
+
+        Map<Long, Long> views = statsService.refreshEventViews(publishedOnByEventId);
+
+        transactionTemplate.executeWithoutResult(status -> views.forEach(eventRepository::updateViews));
+    }
+}
@@ -16,12 +16,14 @@ import ru.practicum.main.event.repository.RequestRepository;
 import ru.practicum.main.exeption.ConflictException;
 import ru.practicum.main.exeption.BadRequest;
 import ru.practicum.main.exeption.NotFoundException;
+import ru.practicum.main.user.mapper.UserMapper;
 import ru.practicum.main.user.model.User;
 import ru.practicum.main.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -39,7 +41,7 @@ public class RequestServiceImpl implements RequestService {
     @Override
     @Transactional
     public ParticipationRequestDto createEventRequestByRequester(Long userId, Long eventId) {
-        User user = userService.getUserById(userId);
+        User user = UserMapper.toUser(userService.getUserById(userId));
         Event event = eventService.getEventById(eventId);
         Long numberParticipants = requestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED);
 
@@ -60,7 +62,9 @@ public class RequestServiceImpl implements RequestService {
         Request request = createRequest(user, event);
 
         if (!event.isRequestModeration() || event.getParticipantLimit() == 0) {
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
+            if (eventRepository.reserveParticipants(eventId, 1) == 0) {
+                throw new ConflictException(String.format("Event request with id=%d limit reached", eventId));
+            }
             request.setStatus(RequestStatus.CONFIRMED);
         } else {
             request.setStatus(RequestStatus.PENDING);
@@ -88,10 +92,10 @@ public class RequestServiceImpl implements RequestService {
                     "User with id=%d cannot cancel request with id=%d as he/she didn't apply fot the event.", userId, requestId));
         }
 
-        Event event = eventService.getEventById(request.getEvent().getId());
-        if (request.getStatus().equals(RequestStatus.CONFIRMED)) {
-            event.setConfirmedRequests(event.getConfirmedRequests() - 1);
-            eventRepository.save(event);
+        if (request.getStatus().equals(RequestStatus.CONFIRMED)
+                && requestRepository.updateStatus(
+                        List.of(requestId), RequestStatus.CONFIRMED, RequestStatus.CANCELED) > 0) {
+            eventRepository.releaseParticipants(request.getEvent().getId(), 1);
         }
 
         request.setStatus(RequestStatus.CANCELED);
@@ -137,38 +141,53 @@ public class RequestServiceImpl implements RequestService {
             throw new BadRequest("The status can be changed only for pending requests");
         }
 
-        List<Request> confirmedList = new ArrayList<>();
-        List<Request> rejectedList;
-
         if (RequestStatus.REJECTED.equals(eventRequest.getStatus())) {
-            requests.forEach(request -> request.setStatus(RequestStatus.REJECTED));
+            changeStatus(requests, RequestStatus.REJECTED);
             return new EventRequestStatusResult(
-                    RequestMapper.toParticipationRequestDto(confirmedList),
-                    RequestMapper.toParticipationRequestDto(requestRepository.saveAll(requests)));
+                    List.of(),
+                    RequestMapper.toParticipationRequestDto(requests));
         }
 
-        int participantLimit = event.getParticipantLimit() - event.getConfirmedRequests();
-        for (Request request : requests) {
-            if (participantLimit != 0) {
-                request.setStatus(RequestStatus.CONFIRMED);
-                confirmedList.add(request);
-                participantLimit--;
-            }
+        int reserved = reserveParticipants(eventId, requests.size());
+        if (reserved == 0) {
+            throw new ConflictException("The participant limit has been reached");
         }
 
-        requests.removeAll(confirmedList);
-        requests.forEach(request -> request.setStatus(RequestStatus.REJECTED));
+        List<Request> confirmedList = new ArrayList<>(requests.subList(0, reserved));
+        List<Request> rejectedList = new ArrayList<>(requests.subList(reserved, requests.size()));
 
-        confirmedList = requestRepository.saveAll(confirmedList);
-        rejectedList = requestRepository.saveAll(requests);
-        event.setConfirmedRequests(event.getConfirmedRequests() + confirmedList.size());
-        eventRepository.save(event);
+        changeStatus(confirmedList, RequestStatus.CONFIRMED);
+        changeStatus(rejectedList, RequestStatus.REJECTED);
 
         return new EventRequestStatusResult(
                 RequestMapper.toParticipationRequestDto(confirmedList),
                 RequestMapper.toParticipationRequestDto(rejectedList));
     }
 
+    private int reserveParticipants(Long eventId, int count) {
+        if (eventRepository.reserveParticipants(eventId, count) > 0) {
+            return count;
+        }
+
+        int reserved = 0;
+        while (reserved < count && eventRepository.reserveParticipants(eventId, 1) > 0) {
+            reserved++;
+        }
+        return reserved;
+    }
+
+    private void changeStatus(List<Request> requests, RequestStatus status) {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = requests.stream().map(Request::getId).collect(Collectors.toList());
+        if (requestRepository.updateStatus(ids, RequestStatus.PENDING, status) != ids.size()) {
+            throw new BadRequest("The status can be changed only for pending requests");
+        }
+        requests.forEach(request -> request.setStatus(status));
+    }
+
     private Request createRequest(User user, Event event) {
         return Request.builder()
                 .created(LocalDateTime.now())
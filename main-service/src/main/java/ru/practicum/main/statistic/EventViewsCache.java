@@ -0,0 +1,119 @@
+package ru.practicum.main.statistic;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Unique view counts per event. A hit is counted into the cached entry of its event instead of reloading it,
+ * because an asynchronously sent hit may not have reached the stats-server yet. A visitor counted by the
+ * server before the entry was loaded is counted again until the entry expires or is refreshed by the views
+ * sync, so cached counts may run slightly ahead of the server for up to the cache ttl.
+ */
+@Component
+public class EventViewsCache {
+
+    private final Cache<Long, CachedViews> cache;
+
+    private final Timer staleness;
+
+    public EventViewsCache(
+            @Value("${app.views.cache.max-size:10000}") long maxSize,
+            @Value("${app.views.cache.ttl:30s}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.staleness = Timer.builder("app.views.cache.staleness")
+                .description("Age of view counts served from the cache")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "eventViews");
+    }
+
+    public Map<Long, Long> getAll(Collection<Long> eventIds, Function<Set<Long>, Map<Long, Long>> loader) {
+        return getAllAsync(eventIds, missing -> CompletableFuture.completedFuture(loader.apply(missing))).join();
+    }
+
+    /**
+     * Serves the cached views right away and completes once the loader has returned the missing ones.
+     */
+    public CompletableFuture<Map<Long, Long>> getAllAsync(
+            Collection<Long> eventIds,
+            Function<Set<Long>, CompletableFuture<Map<Long, Long>>> loader) {
+        Map<Long, Long> views = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long now = System.nanoTime();
+
+        for (Long eventId : eventIds) {
+            CachedViews cached = cache.getIfPresent(eventId);
+            if (cached == null) {
+                missing.add(eventId);
+            } else {
+                views.put(eventId, cached.views.get());
+                staleness.record(now - cached.loadedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(views);
+        }
+
+        return loader.apply(missing).thenApply(loaded -> {
+            long loadedAt = System.nanoTime();
+
+            for (Long eventId : missing) {
+                Long eventViews = loaded.getOrDefault(eventId, 0L);
+                cache.put(eventId, new CachedViews(eventViews, loadedAt));
+                views.put(eventId, eventViews);
+            }
+
+            return views;
+        });
+    }
+
+    public void putAll(Map<Long, Long> views) {
+        long loadedAt = System.nanoTime();
+        views.forEach((eventId, eventViews) -> cache.put(eventId, new CachedViews(eventViews, loadedAt)));
+    }
+
+    public void recordView(Long eventId, String ip) {
+        CachedViews cached = cache.getIfPresent(eventId);
+        if (cached != null && cached.visitors.add(ip)) {
+            cached.views.incrementAndGet();
+        }
+    }
+
+    private static class CachedViews {
+
+        private final AtomicLong views;
+
+        private final long loadedAt;
+
+        private final Set<String> visitors = ConcurrentHashMap.newKeySet();
+
+        CachedViews(long views, long loadedAt) {
+            this.views = new AtomicLong(views);
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,36 +1,178 @@
 package ru.practicum.main.statistic;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import ru.practicum.client.exception.StatisticUnavailableException;
 import ru.practicum.client.stats_client.StatisticsClient;
-import ru.practicum.common.model.ViewStats;
+import ru.practicum.common.model.HitCounts;
+import ru.practicum.common.model.StatsQuery;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatsService {
 
+    private static final String EVENT_URI_PREFIX = "/events/";
+
+    private static final Pattern EVENT_URI = Pattern.compile("^/events/(\\d{1,18})$");
+
     private final StatisticsClient statisticsClient;
 
     @Value("${app.name}")
     private String appName;
 
-    private final ObjectMapper mapper;
+    @Value("${app.views.approximate:false}")
+    private boolean approximateViews;
+
+    private final EventViewsCache eventViewsCache;
+
+    private final Map<Long, Long> viewedEvents = new ConcurrentHashMap<>();
+
+    public Map<Long, Long> getEventViews(Map<Long, LocalDateTime> publishedOnByEventId) {
+        if (publishedOnByEventId.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return eventViewsCache.getAll(publishedOnByEventId.keySet(),
+                eventIds -> loadEventViews(eventIds, publishedOnByEventId));
+    }
+
+    public CompletableFuture<Map<Long, Long>> getEventViewsAsync(Map<Long, LocalDateTime> publishedOnByEventId) {
+        if (publishedOnByEventId.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+
+        return eventViewsCache.getAllAsync(publishedOnByEventId.keySet(),
+                eventIds -> loadEventViewsAsync(eventIds, publishedOnByEventId));
+    }
+
+    public Map<Long, Long> refreshEventViews(Map<Long, LocalDateTime> publishedOnByEventId) {
+        if (publishedOnByEventId.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Long, Long> views = loadEventViews(publishedOnByEventId.keySet(), publishedOnByEventId);
+        publishedOnByEventId.keySet().forEach(eventId -> views.putIfAbsent(eventId, 0L));
+        eventViewsCache.putAll(views);
+
+        return views;
+    }
+
+    private Map<Long, Long> loadEventViews(Set<Long> eventIds, Map<Long, LocalDateTime> publishedOnByEventId) {
+        Map<Long, Long> views = new HashMap<>();
+
+        for (StatsQuery query : toViewsQueries(eventIds, publishedOnByEventId)) {
+            statisticsClient.queryStats(query).forEach(views::put);
+        }
+
+        return views;
+    }
 
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    private CompletableFuture<Map<Long, Long>> loadEventViewsAsync(
+            Set<Long> eventIds,
+            Map<Long, LocalDateTime> publishedOnByEventId) {
+        List<CompletableFuture<HitCounts>> counts = toViewsQueries(eventIds, publishedOnByEventId).stream()
+                .map(statisticsClient::queryStatsAsync)
+                .collect(Collectors.toList());
 
-        ResponseEntity<Object> stats = statisticsClient.getStats(start, end, uris, unique);
-        return mapper.convertValue(stats.getBody(), new TypeReference<>() {});
+        return CompletableFuture.allOf(counts.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<Long, Long> views = new HashMap<>();
+            counts.forEach(count -> count.join().forEach(views::put));
+            return views;
+        });
+    }
+
+    private List<StatsQuery> toViewsQueries(Set<Long> eventIds, Map<Long, LocalDateTime> publishedOnByEventId) {
+        List<Long> ids = List.copyOf(eventIds);
+        LocalDateTime end = LocalDateTime.now();
+        List<StatsQuery> queries = new ArrayList<>();
+
+        for (int from = 0; from < ids.size(); from += StatsQuery.MAX_IDS) {
+            List<Long> chunk = ids.subList(from, Math.min(from + StatsQuery.MAX_IDS, ids.size()));
+            LocalDateTime publishedOn = chunk.stream()
+                    .map(publishedOnByEventId::get)
+                    .min(Comparator.naturalOrder())
+                    .get();
+
+            StatsQuery query = StatsQuery.builder()
+                    .start(publishedOn)
+                    .end(end)
+                    .uriPrefix(EVENT_URI_PREFIX)
+                    .ids(chunk)
+                    .unique(true)
+                    .approximate(approximateViews)
+                    .build();
+
+            queries.add(query);
+        }
+
+        return queries;
     }
 
     public void addHit(HttpServletRequest request) {
-        statisticsClient.addHit(appName,request.getRemoteAddr(), request.getRequestURI(), LocalDateTime.now());
+        try {
+            statisticsClient.addHit(appName,request.getRemoteAddr(), request.getRequestURI(), LocalDateTime.now());
+            onHit(request.getRequestURI(), request.getRemoteAddr());
+        } catch (StatisticUnavailableException e) {
+            log.warn("Hit {} was not recorded: {}", request.getRequestURI(), e.getMessage());
+        }
+    }
+
+    public CompletableFuture<Void> addHitAsync(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String ip = request.getRemoteAddr();
+
+        return statisticsClient.addHitAsync(appName, ip, uri, LocalDateTime.now())
+                .handle((ignored, e) -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause == null) {
+                        onHit(uri, ip);
+                    } else if (cause instanceof StatisticUnavailableException) {
+                        log.warn("Hit {} was not recorded: {}", uri, cause.getMessage());
+                    } else {
+                        throw new CompletionException(cause);
+                    }
+                    return null;
+                });
+    }
+
+    private void onHit(String uri, String ip) {
+        Matcher matcher = EVENT_URI.matcher(uri);
+        if (matcher.matches()) {
+            Long eventId = Long.parseLong(matcher.group(1));
+            eventViewsCache.recordView(eventId, ip);
+            viewedEvents.put(eventId, System.nanoTime());
+        }
+    }
+
+    public Map<Long, Long> getViewedEvents() {
+        return new HashMap<>(viewedEvents);
+    }
+
+    public void markViewed(Collection<Long> eventIds) {
+        long now = System.nanoTime();
+        eventIds.forEach(eventId -> viewedEvents.putIfAbsent(eventId, now));
+    }
+
+    public void markSynced(Long eventId, Long viewedAt) {
+        viewedEvents.remove(eventId, viewedAt);
     }
 }
@@ -2,6 +2,7 @@ package ru.practicum.main.user.contoller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.main.user.dto.NewUserRequest;
 import ru.practicum.main.user.dto.UserDto;
 import ru.practicum.main.user.service.UserService;
+import ru.practicum.main.util.PageCursor;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -26,12 +28,12 @@ public class UserAdminController {
     private final UserService userService;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<UserDto> getAllUsersViaAdmin(
+    public ResponseEntity<List<UserDto>> getAllUsersViaAdmin(
             @RequestParam(required = false) List<Long> ids,
             @RequestParam(defaultValue = "0") int from,
-            @RequestParam(defaultValue = "10") int size) {
-        return userService.getAllUsersViaAdmin(ids, from, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
+        return userService.getAllUsersViaAdmin(ids, from, size, PageCursor.decode(cursor)).toResponse();
     }
 
     @PostMapping
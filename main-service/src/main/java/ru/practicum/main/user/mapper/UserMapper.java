@@ -44,4 +44,12 @@ public class UserMapper {
                 .name(newUserRequest.getName())
                 .build();
     }
+
+    public User toUser(UserDto userDto) {
+        return User.builder()
+                .id(userDto.getId())
+                .email(userDto.getEmail())
+                .name(userDto.getName())
+                .build();
+    }
 }
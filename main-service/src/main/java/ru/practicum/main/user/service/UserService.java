@@ -2,7 +2,8 @@ package ru.practicum.main.user.service;
 
 import ru.practicum.main.user.dto.NewUserRequest;
 import ru.practicum.main.user.dto.UserDto;
-import ru.practicum.main.user.model.User;
+import ru.practicum.main.util.KeysetPage;
+import ru.practicum.main.util.PageCursor;
 
 import java.util.List;
 
@@ -10,10 +11,10 @@ public interface UserService {
 
     UserDto createUserViaAdmin(NewUserRequest newUserRequest);
 
-    List<UserDto> getAllUsersViaAdmin(List<Long> ids, int from, int size);
+    KeysetPage<UserDto> getAllUsersViaAdmin(List<Long> ids, int from, int size, PageCursor cursor);
 
     void deleteUserViaAdminById(Long userId);
 
-    User getUserById(Long userId);
+    UserDto getUserById(Long userId);
 
 }
@@ -1,6 +1,8 @@
 package ru.practicum.main.user.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,7 +12,9 @@ import ru.practicum.main.user.dto.UserDto;
 import ru.practicum.main.user.mapper.UserMapper;
 import ru.practicum.main.user.model.User;
 import ru.practicum.main.user.repository.UserRepository;
+import ru.practicum.main.util.KeysetPage;
 import ru.practicum.main.util.OffsetPageRequest;
+import ru.practicum.main.util.PageCursor;
 
 import java.util.List;
 
@@ -29,25 +33,37 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<UserDto> getAllUsersViaAdmin(List<Long> ids, int from, int size) {
+    public KeysetPage<UserDto> getAllUsersViaAdmin(List<Long> ids, int from, int size, PageCursor cursor) {
+        List<User> users;
+
         if (ids == null || ids.isEmpty()) {
-            return UserMapper.toUserDto(userRepository.findAll(new OffsetPageRequest(from, size)));
+            OffsetPageRequest page = OffsetPageRequest.of(from, size, Sort.by("id"), cursor);
+            users = cursor == null
+                    ? userRepository.findAll(page).getContent()
+                    : userRepository.findAllByIdGreaterThan(cursor.getId(), page);
+        } else {
+            OffsetPageRequest page = OffsetPageRequest.of(from, size, Sort.by("id").descending(), cursor);
+            users = cursor == null
+                    ? userRepository.findAllByIdIn(ids, page)
+                    : userRepository.findAllByIdInAndIdLessThan(ids, cursor.getId(), page);
         }
 
-        return UserMapper.toUserDto(userRepository.findAllByIdIn(
-                ids, new OffsetPageRequest(from, size, Sort.by("id").descending())));
+        return KeysetPage.of(users, size, user -> PageCursor.of(user.getId()), UserMapper.toUserDto(users));
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = "users", key = "#userId")
     public void deleteUserViaAdminById(Long userId) {
         getUserById(userId);
         userRepository.deleteById(userId);
     }
 
     @Override
-    public User getUserById(Long userId) {
+    @Cacheable(cacheNames = "users", key = "#userId")
+    public UserDto getUserById(Long userId) {
         return userRepository.findById(userId)
+                .map(UserMapper::toUserDto)
                 .orElseThrow(() -> new NotFoundException(String.format("User with id=%d was not found", userId)));
     }
 }
@@ -0,0 +1,26 @@
+package ru.practicum.main.util;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+public class FullTextPostgreSQLDialect extends PostgreSQL10Dialect {
+
+    public static final String FTS_MATCH = "fts_match";
+
+    public static final String FTS_RANK = "fts_rank";
+
+    private static final String SEARCH_VECTOR = "(setweight(to_tsvector('simple', coalesce(?1, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(?2, '')), 'B') || " +
+            "setweight(to_tsvector('simple', coalesce(?3, '')), 'C'))";
+
+    private static final String SEARCH_QUERY = "websearch_to_tsquery('simple', ?4)";
+
+    public FullTextPostgreSQLDialect() {
+        super();
+        registerFunction(FTS_MATCH, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(" + SEARCH_VECTOR + " @@ " + SEARCH_QUERY + ")"));
+        registerFunction(FTS_RANK, new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+                "ts_rank_cd(" + SEARCH_VECTOR + ", " + SEARCH_QUERY + ")"));
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.main.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    public static <T> KeysetPage<T> of(List<T> content) {
+        return new KeysetPage<>(content, null);
+    }
+
+    public static <E, T> KeysetPage<T> of(List<E> page, int size, Function<E, PageCursor> cursor, List<T> content) {
+        if (page.isEmpty() || page.size() < size) {
+            return new KeysetPage<>(content, null);
+        }
+
+        return new KeysetPage<>(content, cursor.apply(page.get(page.size() - 1)).encode());
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+
+        return response.body(content);
+    }
+}
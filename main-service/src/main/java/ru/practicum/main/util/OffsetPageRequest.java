@@ -17,6 +17,10 @@ public class OffsetPageRequest extends PageRequest {
         this.from = from;
     }
 
+    public static OffsetPageRequest of(int from, int size, Sort sort, PageCursor cursor) {
+        return new OffsetPageRequest(cursor == null ? from : 0, size, sort);
+    }
+
     @Override
     public long getOffset() {
         return from;
@@ -0,0 +1,82 @@
+package ru.practicum.main.util;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+import ru.practicum.main.exeption.BadRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime key;
+
+    private final Long id;
+
+    public static PageCursor of(LocalDateTime key, Long id) {
+        return new PageCursor(key, id);
+    }
+
+    public static PageCursor of(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("missing separator");
+            }
+
+            String key = value.substring(0, separator);
+            return new PageCursor(
+                    key.isEmpty() ? null : LocalDateTime.parse(key),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequest(String.format("Invalid page cursor=%s.", token));
+        }
+    }
+
+    public String encode() {
+        String value = (key == null ? "" : key.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public BooleanExpression after(
+            ComparableExpression<LocalDateTime> keyPath,
+            NumberPath<Long> idPath,
+            Sort.Direction direction) {
+        if (key == null) {
+            throw new BadRequest("Page cursor doesn't match the requested sort order.");
+        }
+
+        if (direction.isAscending()) {
+            return keyPath.gt(key).or(keyPath.eq(key).and(idPath.gt(id)));
+        }
+        return keyPath.lt(key).or(keyPath.eq(key).and(idPath.lt(id)));
+    }
+
+    public BooleanExpression after(NumberPath<Long> idPath, Sort.Direction direction) {
+        if (key != null) {
+            throw new BadRequest("Page cursor doesn't match the requested sort order.");
+        }
+
+        return direction.isAscending() ? idPath.gt(id) : idPath.lt(id);
+    }
+}
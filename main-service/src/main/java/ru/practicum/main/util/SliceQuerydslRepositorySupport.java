@@ -0,0 +1,37 @@
+package ru.practicum.main.util;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+
+import java.util.List;
+
+/**
+ * Querydsl page reads that only fetch the rows of the page. Unlike
+ * {@link org.springframework.data.querydsl.QuerydslPredicateExecutor#findAll(Predicate, Pageable)} they never run
+ * a COUNT query, which keyset and offset listings do not use.
+ */
+public abstract class SliceQuerydslRepositorySupport<T> extends QuerydslRepositorySupport {
+
+    private final EntityPath<T> path;
+
+    private final String entityGraph;
+
+    protected SliceQuerydslRepositorySupport(Class<T> domainClass, EntityPath<T> path, String entityGraph) {
+        super(domainClass);
+        this.path = path;
+        this.entityGraph = entityGraph;
+    }
+
+    public List<T> findSlice(Predicate predicate, Pageable pageable) {
+        JPAQuery<T> query = new JPAQuery<>(getEntityManager()).select(path).from(path).where(predicate);
+        if (entityGraph != null) {
+            query.setHint(EntityGraph.EntityGraphType.FETCH.getKey(), getEntityManager().getEntityGraph(entityGraph));
+        }
+
+        return getQuerydsl().applyPagination(pageable, query).fetch();
+    }
+}
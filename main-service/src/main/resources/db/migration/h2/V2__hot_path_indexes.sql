@@ -0,0 +1,15 @@
+CREATE INDEX IF NOT EXISTS idx_events_state_event_date ON events (state, event_date);
+
+CREATE INDEX IF NOT EXISTS idx_events_category_event_date ON events (category_id, event_date);
+
+CREATE INDEX IF NOT EXISTS idx_events_initiator_id ON events (initiator_id);
+
+CREATE INDEX IF NOT EXISTS idx_requests_event_id_status ON requests (event_id, status);
+
+CREATE INDEX IF NOT EXISTS idx_requests_requester_id ON requests (requester_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_event_id_created ON comments (event_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_comments_author_id_created ON comments (author_id, created);
+
+CREATE INDEX IF NOT EXISTS idx_compilation_event_compilation_id ON compilation_event (compilation_id);
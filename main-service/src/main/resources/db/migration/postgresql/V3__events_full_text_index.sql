@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_events_search ON events USING GIN ((
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(annotation, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+));
@@ -0,0 +1,106 @@
+package ru.practicum.main;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs perf/hot_paths_dataset.sql against PostgreSQL and checks that each hot-path query is planned as an index scan
+ * on the index its "-- expect:" line names. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HotPathQueryPlanTest {
+
+    private static final Path DATASET = Path.of("perf", "hot_paths_dataset.sql");
+
+    private static final String EXPECT = "-- expect:";
+
+    private static final int EVENTS = 100_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15.3-alpine");
+
+    private static final Map<String, String> PLANS = new LinkedHashMap<>();
+
+    private static final Map<String, String> EXPECTED_INDEXES = new LinkedHashMap<>();
+
+    @BeforeAll
+    static void runDataset() throws IOException, SQLException {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+
+        try (Connection connection = DriverManager.getConnection(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+             Statement statement = connection.createStatement()) {
+            String expectedIndex = null;
+            StringBuilder sql = new StringBuilder();
+            for (String line : Files.readAllLines(DATASET)) {
+                if (line.startsWith(EXPECT)) {
+                    expectedIndex = line.substring(EXPECT.length()).trim();
+                    continue;
+                }
+                if (line.startsWith("\\") || line.startsWith("--") || line.isBlank()) {
+                    continue;
+                }
+                sql.append(line.replace(":events", String.valueOf(EVENTS))).append('\n');
+                if (!line.endsWith(";")) {
+                    continue;
+                }
+
+                String query = sql.toString().trim();
+                sql.setLength(0);
+                if (query.startsWith("EXPLAIN")) {
+                    PLANS.put(query, explain(statement, query));
+                    EXPECTED_INDEXES.put(query, expectedIndex);
+                    expectedIndex = null;
+                } else {
+                    statement.execute(query);
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyHotPathQueryUsesItsIndex() {
+        assertFalse(PLANS.isEmpty(), "No EXPLAIN statements found in " + DATASET);
+        PLANS.forEach((query, plan) -> {
+            String index = EXPECTED_INDEXES.get(query);
+            assertTrue(index != null, "No expected index for\n" + query);
+            assertTrue(plan.contains(" using " + index) || plan.contains(" on " + index),
+                    "Expected a scan on " + index + " for\n" + query + "\nbut the plan was\n" + plan);
+            assertFalse(plan.contains("Seq Scan"), "Sequential scan for\n" + query + "\n" + plan);
+        });
+    }
+
+    private static String explain(Statement statement, String query) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery(query)) {
+            while (resultSet.next()) {
+                plan.add(resultSet.getString(1));
+            }
+        }
+        return String.join("\n", plan);
+    }
+}
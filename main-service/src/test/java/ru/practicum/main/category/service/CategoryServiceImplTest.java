@@ -0,0 +1,71 @@
+package ru.practicum.main.category.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.main.category.dto.CategoryDto;
+import ru.practicum.main.category.dto.NewCategoryDto;
+import ru.practicum.main.exeption.NotFoundException;
+import ru.practicum.main.statistic.StatsService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CategoryServiceImplTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private StatsService statsService;
+
+    @Test
+    void lookupsAreCachedAsDtos() {
+        Long catId = category("cached-category");
+
+        categoryService.getCategoryById(catId);
+
+        assertInstanceOf(CategoryDto.class, categories().get(catId).get());
+    }
+
+    @Test
+    void patchEvictsTheCachedCategory() {
+        Long catId = category("patched-category");
+        categoryService.getCategoryById(catId);
+
+        categoryService.patchCategoryViaAdmin(new CategoryDto(catId, "renamed-category"), catId);
+
+        assertNull(categories().get(catId));
+        assertEquals("renamed-category", categoryService.getCategoryById(catId).getName());
+    }
+
+    @Test
+    void deleteEvictsTheCachedCategory() {
+        Long catId = category("deleted-category");
+        categoryService.getCategoryById(catId);
+
+        categoryService.deleteCategoryViaAdminById(catId);
+
+        assertNull(categories().get(catId));
+        assertThrows(NotFoundException.class, () -> categoryService.getCategoryById(catId));
+    }
+
+    private Long category(String name) {
+        return categoryService.createCategoryViaAdmin(new NewCategoryDto(name)).getId();
+    }
+
+    private Cache categories() {
+        return cacheManager.getCache("categories");
+    }
+}
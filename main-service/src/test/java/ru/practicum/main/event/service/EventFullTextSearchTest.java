@@ -0,0 +1,146 @@
+package ru.practicum.main.event.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.main.category.model.Category;
+import ru.practicum.main.category.repository.CategoryRepository;
+import ru.practicum.main.event.dto.EventRequest;
+import ru.practicum.main.event.dto.EventShortDto;
+import ru.practicum.main.event.enums.EventSortType;
+import ru.practicum.main.event.enums.EventState;
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.model.Location;
+import ru.practicum.main.event.repository.EventRepository;
+import ru.practicum.main.event.repository.LocationRepository;
+import ru.practicum.main.statistic.StatsService;
+import ru.practicum.main.user.model.User;
+import ru.practicum.main.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Full-text search and sort=RELEVANCE only run on PostgreSQL, so they are checked against a container. Skipped when
+ * Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "app.events.full-text-search=true")
+class EventFullTextSearchTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15.3-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @MockBean
+    private StatsService statsService;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        when(statsService.addHitAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(statsService.getEventViewsAsync(any())).thenReturn(CompletableFuture.completedFuture(Map.of()));
+        category = categoryRepository.save(Category.builder().name("search-category-" + SEQUENCE.incrementAndGet()).build());
+    }
+
+    @Test
+    void relevanceSortRanksTitleMatchesFirstAndSkipsNonMatches() {
+        Long inDescription = event("Evening out", "A quiet evening in the city park",
+                "Bring a blanket, the jazz concert starts at eight", 1);
+        Long inTitle = event("Jazz concert", "Live music on the river bank for the whole family",
+                "An open air evening with local bands", 2);
+        event("Chess tournament", "Rapid chess for every level of player",
+                "Boards and clocks are provided by the club", 3);
+
+        assertEquals(List.of(inTitle, inDescription), search("jazz concert", EventSortType.RELEVANCE));
+    }
+
+    @Test
+    void relevanceSortBreaksTiesByEventDate() {
+        Long later = event("Marathon", "Run through the old town on a closed route", "Registration on site", 5);
+        Long sooner = event("Marathon", "Run through the old town on a closed route", "Registration on site", 4);
+
+        assertEquals(List.of(sooner, later), search("marathon", EventSortType.RELEVANCE));
+    }
+
+    @Test
+    void searchUsesWebSearchSyntax() {
+        Long open = event("Open air cinema", "Classic films under the stars every weekend", "Chairs provided", 1);
+        event("Indoor cinema", "Classic films in a cosy hall every weekend", "Tickets at the door", 2);
+
+        assertEquals(List.of(open), search("cinema -indoor", EventSortType.EVENT_DATE));
+    }
+
+    private List<Long> search(String text, EventSortType sort) {
+        return eventService.getAllEventsViaPublic(EventRequest.of(
+                        new MockHttpServletRequest("GET", "/events"), text, List.of(category.getId()), null, null,
+                        null, false, sort, 0, 10, null)).getContent().stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Long event(String title, String annotation, String description, int daysAhead) {
+        int n = SEQUENCE.incrementAndGet();
+        User user = userRepository.save(User.builder()
+                .name("search-initiator-" + n)
+                .email("search-initiator-" + n + "@mail.ru")
+                .build());
+        Location location = locationRepository.save(Location.builder().lat((double) n).lon((double) -n).build());
+        return eventRepository.save(Event.builder()
+                .annotation(annotation)
+                .description(description)
+                .title(title)
+                .category(category)
+                .initiator(user)
+                .location(location)
+                .createdOn(LocalDateTime.now())
+                .publishedOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(daysAhead))
+                .participantLimit(0)
+                .confirmedRequests(0)
+                .requestModeration(true)
+                .state(EventState.PUBLISHED)
+                .build()).getId();
+    }
+}
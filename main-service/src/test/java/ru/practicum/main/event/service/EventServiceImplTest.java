@@ -0,0 +1,182 @@
+package ru.practicum.main.event.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.client.exception.StatisticUnavailableException;
+import ru.practicum.main.category.model.Category;
+import ru.practicum.main.category.repository.CategoryRepository;
+import ru.practicum.main.event.dto.EventRequest;
+import ru.practicum.main.event.dto.EventShortDto;
+import ru.practicum.main.event.enums.EventSortType;
+import ru.practicum.main.event.enums.EventState;
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.model.Location;
+import ru.practicum.main.event.repository.EventRepository;
+import ru.practicum.main.event.repository.LocationRepository;
+import ru.practicum.main.statistic.StatsService;
+import ru.practicum.main.user.model.User;
+import ru.practicum.main.user.repository.UserRepository;
+import ru.practicum.main.util.PageCursor;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Event listings load category, initiator and location with the page, so the number of statements a page
+ * takes must not grow with its size, and a page must not be counted.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class EventServiceImplTest {
+
+    private static final int EVENTS = 12;
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private StatsService statsService;
+
+    private final List<Long> categoryIds = new ArrayList<>();
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    private final List<Long> eventIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(statsService.addHitAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(statsService.getEventViewsAsync(any())).thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        for (int i = 0; i < EVENTS; i++) {
+            int n = SEQUENCE.incrementAndGet();
+            User user = userRepository.save(User.builder()
+                    .name("initiator-" + n)
+                    .email("initiator-" + n + "@mail.ru")
+                    .build());
+            Category category = categoryRepository.save(Category.builder().name("category-" + n).build());
+            Location location = locationRepository.save(Location.builder().lat((double) n).lon((double) -n).build());
+            Event event = eventRepository.save(Event.builder()
+                    .annotation("Annotation of the event number " + n)
+                    .description("Description of the event number " + n)
+                    .title("Event " + n)
+                    .category(category)
+                    .initiator(user)
+                    .location(location)
+                    .createdOn(LocalDateTime.now())
+                    .publishedOn(LocalDateTime.now())
+                    .eventDate(LocalDateTime.now().plusDays(1))
+                    .participantLimit(0)
+                    .confirmedRequests(0)
+                    .requestModeration(true)
+                    .state(EventState.PUBLISHED)
+                    .build());
+            eventIds.add(event.getId());
+            categoryIds.add(category.getId());
+            userIds.add(user.getId());
+        }
+    }
+
+    @Test
+    void publicPageStatementsDoNotGrowWithPageSize() {
+        assertEquals(publicPageStatements(2), publicPageStatements(EVENTS));
+    }
+
+    @Test
+    void adminPageStatementsDoNotGrowWithPageSize() {
+        assertEquals(adminPageStatements(2), adminPageStatements(EVENTS));
+    }
+
+    @Test
+    void cursorPageIsASingleStatement() {
+        PageCursor cursor = PageCursor.of(eventIds.get(0));
+
+        assertEquals(1, countStatements(() -> assertEquals(2, eventService.getEventsViaAdmin(EventRequest.ofAdmin(
+                userIds, null, null, null, null, 0, 2, cursor)).getContent().size())));
+    }
+
+    @Test
+    void publicPageFallsBackToSyncedViewsWhenStatsAreUnavailable() {
+        transactionTemplate.executeWithoutResult(status -> eventRepository.updateViews(eventIds.get(0), 42));
+        when(statsService.getEventViewsAsync(any())).thenReturn(CompletableFuture.failedFuture(
+                new StatisticUnavailableException("stats-server is down")));
+
+        List<EventShortDto> events = eventService.getAllEventsViaPublic(EventRequest.of(
+                new MockHttpServletRequest("GET", "/events"), "", categoryIds, null, null, null,
+                false, null, 0, EVENTS, null)).getContent();
+
+        assertEquals(EVENTS, events.size());
+        assertEquals(42L, events.get(0).getViews());
+    }
+
+    @Test
+    void viewsSortedPageShowsLiveViews() {
+        transactionTemplate.executeWithoutResult(status -> eventRepository.updateViews(eventIds.get(1), 42));
+        when(statsService.getEventViewsAsync(any())).thenReturn(CompletableFuture.completedFuture(
+                Map.of(eventIds.get(1), 50L)));
+
+        List<EventShortDto> events = eventService.getAllEventsViaPublic(EventRequest.of(
+                new MockHttpServletRequest("GET", "/events"), "", categoryIds, null, null, null,
+                false, EventSortType.VIEWS, 0, EVENTS, null)).getContent();
+
+        assertEquals(EVENTS, events.size());
+        assertEquals(eventIds.get(1), events.get(0).getId());
+        assertEquals(50L, events.get(0).getViews());
+        assertEquals(0L, events.get(1).getViews());
+    }
+
+    private long publicPageStatements(int size) {
+        return countStatements(() -> assertEquals(size, eventService.getAllEventsViaPublic(EventRequest.of(
+                new MockHttpServletRequest("GET", "/events"), "", categoryIds, null, null, null,
+                false, null, 0, size, null)).getContent().size()));
+    }
+
+    private long adminPageStatements(int size) {
+        return countStatements(() -> assertEquals(size, eventService.getEventsViaAdmin(EventRequest.ofAdmin(
+                userIds, null, null, null, null, 0, size, null)).getContent().size()));
+    }
+
+    private long countStatements(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
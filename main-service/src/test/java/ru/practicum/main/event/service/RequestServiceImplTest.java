@@ -0,0 +1,189 @@
+package ru.practicum.main.event.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.main.category.model.Category;
+import ru.practicum.main.category.repository.CategoryRepository;
+import ru.practicum.main.event.dto.EventRequestStatus;
+import ru.practicum.main.event.dto.EventRequestStatusResult;
+import ru.practicum.main.event.dto.ParticipationRequestDto;
+import ru.practicum.main.event.enums.EventState;
+import ru.practicum.main.event.enums.RequestStatus;
+import ru.practicum.main.event.model.Event;
+import ru.practicum.main.event.model.Location;
+import ru.practicum.main.event.model.Request;
+import ru.practicum.main.event.repository.EventRepository;
+import ru.practicum.main.event.repository.LocationRepository;
+import ru.practicum.main.event.repository.RequestRepository;
+import ru.practicum.main.exeption.ConflictException;
+import ru.practicum.main.statistic.StatsService;
+import ru.practicum.main.user.model.User;
+import ru.practicum.main.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RequestServiceImplTest {
+
+    private static final int PARTICIPANT_LIMIT = 5;
+
+    private static final int REQUESTERS = 400;
+
+    private static final int OWNER_CALLS = 100;
+
+    private static final int REQUESTS_PER_OWNER_CALL = 2;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @MockBean
+    private StatsService statsService;
+
+    @Test
+    void concurrentRequestsNeverConfirmMoreThanTheParticipantLimit() throws Exception {
+        Event event = event("reservation", false);
+        List<User> requesters = new ArrayList<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            requesters.add(user("reservation-requester-" + i));
+        }
+
+        List<Callable<ParticipationRequestDto>> tasks = new ArrayList<>();
+        for (User requester : requesters) {
+            tasks.add(() -> requestService.createEventRequestByRequester(requester.getId(), event.getId()));
+        }
+
+        int confirmed = 0;
+        for (Future<ParticipationRequestDto> result : runAtOnce(tasks)) {
+            try {
+                assertEquals(RequestStatus.CONFIRMED.name(), result.get().getStatus());
+                confirmed++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(ConflictException.class, e.getCause());
+            }
+        }
+
+        assertEquals(PARTICIPANT_LIMIT, confirmed);
+        assertEquals(PARTICIPANT_LIMIT, eventRepository.findById(event.getId()).orElseThrow().getConfirmedRequests());
+        assertEquals(PARTICIPANT_LIMIT, requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED));
+    }
+
+    @Test
+    void concurrentOwnerConfirmationsNeverExceedTheParticipantLimitNorLoseAConfirmation() throws Exception {
+        Event event = event("moderation", true);
+        List<Long> requestIds = new ArrayList<>();
+        for (int i = 0; i < OWNER_CALLS * REQUESTS_PER_OWNER_CALL; i++) {
+            requestIds.add(requestService.createEventRequestByRequester(
+                    user("moderation-requester-" + i).getId(), event.getId()).getId());
+        }
+
+        List<Callable<EventRequestStatusResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < OWNER_CALLS; i++) {
+            EventRequestStatus confirm = EventRequestStatus.builder()
+                    .requestIds(requestIds.subList(i * REQUESTS_PER_OWNER_CALL, (i + 1) * REQUESTS_PER_OWNER_CALL))
+                    .status(RequestStatus.CONFIRMED)
+                    .build();
+            tasks.add(() -> requestService.patchEventRequestByEventOwner(
+                    confirm, event.getInitiator().getId(), event.getId()));
+        }
+
+        Map<Long, RequestStatus> reported = new HashMap<>();
+        for (Future<EventRequestStatusResult> result : runAtOnce(tasks)) {
+            try {
+                result.get().getConfirmedRequests()
+                        .forEach(request -> reported.put(request.getId(), RequestStatus.CONFIRMED));
+                result.get().getRejectedRequests()
+                        .forEach(request -> reported.put(request.getId(), RequestStatus.REJECTED));
+            } catch (ExecutionException e) {
+                assertInstanceOf(ConflictException.class, e.getCause());
+            }
+        }
+
+        long confirmed = reported.values().stream().filter(RequestStatus.CONFIRMED::equals).count();
+        assertEquals(PARTICIPANT_LIMIT, confirmed);
+        assertEquals(PARTICIPANT_LIMIT, eventRepository.findById(event.getId()).orElseThrow().getConfirmedRequests());
+        assertEquals(PARTICIPANT_LIMIT, requestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED));
+        for (Request request : requestRepository.findAllByIdIn(requestIds)) {
+            assertEquals(reported.getOrDefault(request.getId(), RequestStatus.PENDING), request.getStatus(),
+                    "Status of request " + request.getId());
+        }
+    }
+
+    /**
+     * Runs every task on its own thread, releasing them together once all threads have reached the barrier.
+     */
+    private static <T> List<Future<T>> runAtOnce(List<Callable<T>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CyclicBarrier barrier = new CyclicBarrier(tasks.size());
+        List<Future<T>> results = new ArrayList<>();
+        try {
+            for (Callable<T> task : tasks) {
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return task.call();
+                }));
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES), "Concurrent tasks did not finish");
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Event event(String name, boolean requestModeration) {
+        return eventRepository.save(Event.builder()
+                .annotation("Event with a small participant limit")
+                .description("Event with a small participant limit, requested by many users at once")
+                .title("Small event")
+                .category(categoryRepository.save(Category.builder().name(name + "-category").build()))
+                .initiator(user(name + "-initiator"))
+                .location(locationRepository.findByLatAndLon(90.0, 180.0)
+                        .orElseGet(() -> locationRepository.save(Location.builder().lat(90.0).lon(180.0).build())))
+                .createdOn(LocalDateTime.now())
+                .publishedOn(LocalDateTime.now())
+                .eventDate(LocalDateTime.now().plusDays(1))
+                .participantLimit(PARTICIPANT_LIMIT)
+                .confirmedRequests(0)
+                .requestModeration(requestModeration)
+                .state(EventState.PUBLISHED)
+                .build());
+    }
+
+    private User user(String name) {
+        return userRepository.save(User.builder().name(name).email(name + "@mail.ru").build());
+    }
+}
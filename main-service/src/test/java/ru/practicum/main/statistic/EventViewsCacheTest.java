@@ -0,0 +1,36 @@
+package ru.practicum.main.statistic;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EventViewsCacheTest {
+
+    private final EventViewsCache cache = new EventViewsCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Test
+    void viewsAreCountedIntoTheCachedEntryOncePerVisitor() {
+        assertEquals(Map.of(1L, 5L), cache.getAll(List.of(1L), ids -> Map.of(1L, 5L)));
+
+        cache.recordView(1L, "10.0.0.1");
+        cache.recordView(1L, "10.0.0.1");
+        cache.recordView(1L, "10.0.0.2");
+
+        assertEquals(Map.of(1L, 7L), cache.getAll(List.of(1L), ids -> {
+            throw new AssertionError("Cached views were reloaded for " + ids);
+        }));
+    }
+
+    @Test
+    void viewsOfUncachedEventsAreLoaded() {
+        cache.recordView(2L, "10.0.0.1");
+
+        assertEquals(Map.of(2L, 3L), cache.getAll(Set.of(2L), ids -> Map.of(2L, 3L)));
+    }
+}
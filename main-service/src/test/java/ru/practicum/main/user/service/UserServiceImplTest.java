@@ -0,0 +1,50 @@
+package ru.practicum.main.user.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.main.exeption.NotFoundException;
+import ru.practicum.main.statistic.StatsService;
+import ru.practicum.main.user.dto.NewUserRequest;
+import ru.practicum.main.user.dto.UserDto;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceImplTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private StatsService statsService;
+
+    @Test
+    void deleteEvictsTheCachedUser() {
+        Long userId = userService.createUserViaAdmin(NewUserRequest.builder()
+                .email("cached-user@mail.ru")
+                .name("cached-user")
+                .build()).getId();
+        userService.getUserById(userId);
+        assertInstanceOf(UserDto.class, users().get(userId).get());
+
+        userService.deleteUserViaAdminById(userId);
+
+        assertNull(users().get(userId));
+        assertThrows(NotFoundException.class, () -> userService.getUserById(userId));
+    }
+
+    private Cache users() {
+        return cacheManager.getCache("users");
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with JSON results and the allocation profiler unless the command line says otherwise, so
+ * {@code java -jar benchmarks.jar -rff before.json} on two commits gives files that compare directly.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = Arrays.asList(args);
+        List<String> defaults = new ArrayList<>();
+
+        if (!options.contains("-rf")) {
+            defaults.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-prof")) {
+            defaults.addAll(List.of("-prof", "gc"));
+        }
+
+        defaults.addAll(options);
+        Main.main(defaults.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.util.StatsUtil;
+import ru.practicum.stats.mapper.EndpointMapper;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndpointHitBenchmark {
+
+    private static final TypeReference<List<EndpointHitDto>> HIT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1", "500"})
+    private int batch;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<EndpointHitDto> dtos;
+
+    private List<EndpointHit> hits;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        dtos = new ArrayList<>(batch);
+
+        for (int i = 0; i < batch; i++) {
+            dtos.add(EndpointHitDto.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + (100_000 + i))
+                    .ip("10.0." + i % 256 + "." + i * 7 % 256)
+                    .timestamp(now.minusSeconds(i).format(StatsUtil.DATE_TIME_FORMATTER))
+                    .build());
+        }
+
+        hits = mapToHits();
+        body = mapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public List<EndpointHit> mapToHits() {
+        List<EndpointHit> mapped = new ArrayList<>(dtos.size());
+        for (EndpointHitDto dto : dtos) {
+            mapped.add(EndpointMapper.mapToEndpointHit(dto));
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public List<EndpointHitDto> mapToDtos() {
+        List<EndpointHitDto> mapped = new ArrayList<>(hits.size());
+        for (EndpointHit hit : hits) {
+            mapped.add(EndpointMapper.mapToEndpointHitDto(hit));
+        }
+        return mapped;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public List<EndpointHitDto> deserialize() throws IOException {
+        return mapper.readValue(body, HIT_LIST);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.client.stats_client.HitOverflowPolicy;
+import ru.practicum.client.stats_client.StatisticsClientImpl;
+import ru.practicum.common.model.HitCounts;
+import ru.practicum.common.model.StatsQuery;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client calls against an in-process {@link StatsStubServer}. Request building is private to the client, so
+ * it is measured together with a loopback round trip; compare runs on the same machine only. The stub needs
+ * TCP_NODELAY, otherwise delayed acks dominate every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class StatsClientBenchmark {
+
+    @Param({"1", "100"})
+    private int uris;
+
+    private HttpServer server;
+
+    private StatisticsClientImpl client;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private List<String> uriList;
+
+    private StatsQuery query;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = StatsStubServer.start(0, 0, 0);
+        client = new StatisticsClientImpl(
+                "http://localhost:" + server.getAddress().getPort(), false, 10_000, 500, 1000,
+                HitOverflowPolicy.DROP, 50, Files.createTempFile("stats-bench", ".spill"),
+                50, Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofSeconds(2),
+                Duration.ofSeconds(3), 0, 5, Duration.ofSeconds(10), new SimpleMeterRegistry()) {
+        };
+
+        end = LocalDateTime.now();
+        start = end.minusDays(30);
+        uriList = new ArrayList<>(uris);
+        List<Long> ids = new ArrayList<>(uris);
+        for (long id = 1; id <= uris; id++) {
+            uriList.add("/events/" + id);
+            ids.add(id);
+        }
+        query = StatsQuery.builder()
+                .start(start)
+                .end(end)
+                .uriPrefix("/events/")
+                .ids(ids)
+                .unique(true)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.destroy();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> getStats() {
+        return client.getStats(start, end, uriList, true);
+    }
+
+    @Benchmark
+    public HitCounts queryStats() {
+        return client.queryStats(query);
+    }
+
+    @Benchmark
+    public void addHit() {
+        client.addHit("ewm-main-service", "10.0.0.1", "/events/1", end);
+    }
+}
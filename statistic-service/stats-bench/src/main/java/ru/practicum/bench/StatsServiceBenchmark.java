@@ -0,0 +1,141 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.common.util.StatsUtil;
+import ru.practicum.stats.StatisticService;
+import ru.practicum.stats.sevice.StatsService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code StatsService.getStats} over the last two days of three days of hits, on the H2 profile with the
+ * recent window index off, with it on, and on the hit log storage engine. The result cache is disabled so
+ * every call reaches the engine. Hibernate is left out: stats-server maps no entities and it cannot find a
+ * persistence unit root inside the shaded jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsServiceBenchmark {
+
+    private static final int FILTER_SIZE = 10;
+
+    @Param({"h2", "recent-index", "hit-log"})
+    private String engine;
+
+    @Param({"100", "10000"})
+    private int uris;
+
+    @Param({"100000"})
+    private int hits;
+
+    @Param({"false", "true"})
+    private boolean unique;
+
+    private ConfigurableApplicationContext context;
+
+    private StatsService statsService;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private List<String> filter;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(StatisticService.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:stats_bench;MODE=PostgreSQL",
+                        "spring.autoconfigure.exclude=" + HibernateJpaAutoConfiguration.class.getName(),
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "stats.cache.enabled=false",
+                        "stats.storage=" + ("hit-log".equals(engine) ? "hit-log" : "jpa"),
+                        "stats.hit-log.dir=" + Files.createTempDirectory("stats-bench-hit-log"),
+                        "stats.write-behind.journal.dir=" + Files.createTempDirectory("stats-bench-journal"),
+                        "stats.recent-index.enabled=" + "recent-index".equals(engine))
+                .run();
+        statsService = context.getBean(StatsService.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        statsService.addHits(generateHits(now));
+
+        end = now;
+        start = now.minusDays(2);
+        filter = new ArrayList<>(FILTER_SIZE);
+        for (int i = 0; i < FILTER_SIZE; i++) {
+            filter.add("/events/" + i * uris / FILTER_SIZE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ViewStats> allUris() {
+        return statsService.getStats(start, end, null, unique, false, null, null);
+    }
+
+    @Benchmark
+    public List<ViewStats> filteredUris() {
+        return statsService.getStats(start, end, filter, unique, false, null, null);
+    }
+
+    private Iterator<EndpointHitDto> generateHits(LocalDateTime now) {
+        SplittableRandom random = new SplittableRandom(42);
+
+        return new Iterator<>() {
+
+            private int generated;
+
+            @Override
+            public boolean hasNext() {
+                return generated < hits;
+            }
+
+            @Override
+            public EndpointHitDto next() {
+                generated++;
+                return EndpointHitDto.builder()
+                        .app("ewm-main-service")
+                        .uri("/events/" + random.nextInt(uris))
+                        .ip("10.0." + random.nextInt(16) + "." + random.nextInt(256))
+                        .timestamp(now.minusSeconds(random.nextInt(3 * 24 * 60 * 60))
+                                .format(StatsUtil.DATE_TIME_FORMATTER))
+                        .build();
+            }
+        };
+    }
+}
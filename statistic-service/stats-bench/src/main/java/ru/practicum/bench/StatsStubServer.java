@@ -0,0 +1,65 @@
+package ru.practicum.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stand-in for stats-server with configurable latency and failure rate, for exercising the
+ * stats client timeouts and circuit breaker locally:
+ * {@code java -cp benchmarks.jar ru.practicum.bench.StatsStubServer 9090 5000 0.5}.
+ */
+@Slf4j
+public class StatsStubServer {
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        long delayMs = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        double failureRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+
+        start(port, delayMs, failureRate);
+
+        log.info("Stats stub listening on {} with {} ms delay and {} failure rate.", port, delayMs, failureRate);
+    }
+
+    public static HttpServer start(int port, long delayMs, double failureRate) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/hit", exchange -> respond(exchange, delayMs, failureRate, 201, "{}"));
+        server.createContext("/stats/query", exchange -> respond(exchange, delayMs, failureRate, 200, "{}"));
+        server.createContext("/stats", exchange -> respond(exchange, delayMs, failureRate, 200, "[]"));
+        server.start();
+
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, long delayMs, double failureRate, int status, String body)
+            throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean fail = ThreadLocalRandom.current().nextDouble() < failureRate;
+        byte[] bytes = (fail ? "{\"error\":\"stub failure\"}" : body).getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fail ? 503 : status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
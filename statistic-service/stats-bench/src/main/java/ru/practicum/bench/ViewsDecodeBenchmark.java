@@ -0,0 +1,85 @@
+package ru.practicum.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.client.stats_client.HitCountsReader;
+import ru.practicum.common.model.HitCounts;
+import ru.practicum.common.model.ViewStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewsDecodeBenchmark {
+
+    private static final TypeReference<List<ViewStats>> VIEW_STATS = new TypeReference<>() {
+    };
+
+    private static final TypeReference<Map<Long, Long>> HITS_BY_ID = new TypeReference<>() {
+    };
+
+    @Param({"10", "100", "1000"})
+    private int events;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private byte[] statsBody;
+
+    private byte[] queryBody;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<ViewStats> stats = new ArrayList<>(events);
+        Map<Long, Long> hits = new LinkedHashMap<>();
+
+        for (long id = 1; id <= events; id++) {
+            long count = id * 37 % 10_000;
+            stats.add(new ViewStats("ewm-main-service", "/events/" + (100_000 + id), count));
+            hits.put(100_000 + id, count);
+        }
+
+        statsBody = mapper.writeValueAsBytes(stats);
+        queryBody = mapper.writeValueAsBytes(hits);
+    }
+
+    @Benchmark
+    public Map<Long, Long> convertValue() throws IOException {
+        Object body = mapper.readValue(statsBody, Object.class);
+        List<ViewStats> stats = mapper.convertValue(body, VIEW_STATS);
+
+        return stats.stream()
+                .collect(Collectors.toMap(entity -> (
+                        Long.parseLong(entity.getUri().split("/")[2])), ViewStats::getHits));
+    }
+
+    @Benchmark
+    public Map<Long, Long> boxedMap() throws IOException {
+        return mapper.readValue(queryBody, HITS_BY_ID);
+    }
+
+    @Benchmark
+    public HitCounts hitCounts() throws IOException {
+        return HitCountsReader.read(queryBody);
+    }
+}
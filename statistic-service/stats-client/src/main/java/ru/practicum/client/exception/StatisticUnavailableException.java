@@ -0,0 +1,11 @@
+package ru.practicum.client.exception;
+
+public class StatisticUnavailableException extends StatisticException {
+    public StatisticUnavailableException(String message) {
+        super(message);
+    }
+
+    public StatisticUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,293 @@
+package ru.practicum.client.stats_client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.client.exception.StatisticUnavailableException;
+import ru.practicum.common.model.EndpointHitDto;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Queue that sends hits to the stats-server in batches from a background thread. Only
+ * {@link StatisticUnavailableException} is treated as transient: with {@link HitOverflowPolicy#SPILL} the batch is
+ * spilled to disk and sending backs off. Any other failure means the server rejected the batch, which is dropped
+ * and counted as rejected. Spilled hits are delivered at least once: a batch that timed out after the server
+ * stored it is replayed and stored again. Hits that overflow a full queue are never written to disk on the
+ * calling thread: they are parked in an overflow queue of the same capacity that the flusher spills, and are
+ * dropped once that is full too.
+ */
+@Slf4j
+class HitBatchQueue implements AutoCloseable {
+
+    private static final String FIELD_SEPARATOR = "\t";
+
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final BlockingQueue<EndpointHitDto> queue;
+
+    private final BlockingQueue<EndpointHitDto> overflow;
+
+    private final int batchSize;
+
+    private final HitOverflowPolicy overflowPolicy;
+
+    private final long blockTimeoutMs;
+
+    private final Path spillFile;
+
+    private final long flushIntervalMs;
+
+    private final Consumer<List<EndpointHitDto>> sender;
+
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Object spillLock = new Object();
+
+    private final Counter droppedHits;
+
+    private final Counter flushedHits;
+
+    private final Counter spilledHits;
+
+    private final Counter failedHits;
+
+    private final Counter rejectedHits;
+
+    private long backoffMs;
+
+    private long retryAt;
+
+    HitBatchQueue(
+            int capacity,
+            int batchSize,
+            long flushIntervalMs,
+            HitOverflowPolicy overflowPolicy,
+            long blockTimeoutMs,
+            Path spillFile,
+            Consumer<List<EndpointHitDto>> sender,
+            MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = overflowPolicy == HitOverflowPolicy.SPILL ? new ArrayBlockingQueue<>(capacity) : null;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillFile = spillFile;
+        this.flushIntervalMs = flushIntervalMs;
+        this.sender = sender;
+
+        this.droppedHits = meterRegistry.counter("stats.client.hits.dropped");
+        this.flushedHits = meterRegistry.counter("stats.client.hits.flushed");
+        this.spilledHits = meterRegistry.counter("stats.client.hits.spilled");
+        this.failedHits = meterRegistry.counter("stats.client.hits.failed");
+        this.rejectedHits = meterRegistry.counter("stats.client.hits.rejected");
+        meterRegistry.gauge("stats.client.hits.queued", queue, BlockingQueue::size);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-hit-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void offer(EndpointHitDto hit) {
+        if (!queue.offer(hit) && !handleOverflow(hit)) {
+            return;
+        }
+
+        if (queue.size() >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private boolean handleOverflow(EndpointHitDto hit) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(hit, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                droppedHits.increment();
+                return false;
+            case SPILL:
+                if (overflow.offer(hit)) {
+                    requestFlush();
+                } else {
+                    droppedHits.increment();
+                }
+                return false;
+            default:
+                droppedHits.increment();
+                return false;
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+
+        if (overflow != null && overflow.drainTo(batch) > 0) {
+            spill(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (isBackingOff()) {
+                spill(batch);
+            } else {
+                send(batch);
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+
+        if (overflowPolicy == HitOverflowPolicy.SPILL && !isBackingOff()) {
+            replaySpilled();
+        }
+    }
+
+    private boolean isBackingOff() {
+        return overflowPolicy == HitOverflowPolicy.SPILL && System.currentTimeMillis() < retryAt;
+    }
+
+    private boolean send(List<EndpointHitDto> batch) {
+        try {
+            sender.accept(batch);
+            flushedHits.increment(batch.size());
+            backoffMs = 0;
+            return true;
+        } catch (StatisticUnavailableException e) {
+            log.warn("Failed to flush {} hits to the stats-server: {}", batch.size(), e.getMessage());
+            failedHits.increment(batch.size());
+            if (overflowPolicy == HitOverflowPolicy.SPILL) {
+                spill(batch);
+                backoffMs = backoffMs == 0 ? flushIntervalMs : Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+                retryAt = System.currentTimeMillis() + backoffMs;
+            } else {
+                droppedHits.increment(batch.size());
+            }
+            return false;
+        } catch (RuntimeException e) {
+            log.error("The stats-server rejected {} hits, dropping them: {}", batch.size(), e.getMessage());
+            rejectedHits.increment(batch.size());
+            backoffMs = 0;
+            return true;
+        }
+    }
+
+    private void spill(List<EndpointHitDto> hits) {
+        synchronized (spillLock) {
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (EndpointHitDto hit : hits) {
+                    writer.write(String.join(FIELD_SEPARATOR, hit.getApp(), hit.getUri(), hit.getIp(), hit.getTimestamp()));
+                    writer.newLine();
+                }
+                spilledHits.increment(hits.size());
+            } catch (IOException e) {
+                log.error("Failed to spill {} hits to {}: {}", hits.size(), spillFile, e.getMessage());
+                droppedHits.increment(hits.size());
+            }
+        }
+    }
+
+    private void replaySpilled() {
+        Path replayFile = spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+
+        synchronized (spillLock) {
+            try {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.error("Failed to rotate spill file {}: {}", spillFile, e.getMessage());
+                return;
+            }
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+            boolean sending = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(FIELD_SEPARATOR, -1);
+                if (fields.length != 4) {
+                    continue;
+                }
+                batch.add(EndpointHitDto.builder()
+                        .app(fields[0])
+                        .uri(fields[1])
+                        .ip(fields[2])
+                        .timestamp(fields[3])
+                        .build());
+                if (batch.size() == batchSize) {
+                    sending = replay(batch, sending);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                replay(batch, sending);
+            }
+        } catch (IOException e) {
+            log.error("Failed to replay spilled hits from {}: {}", replayFile, e.getMessage());
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(replayFile);
+        } catch (IOException e) {
+            log.error("Failed to delete replayed spill file {}: {}", replayFile, e.getMessage());
+        }
+    }
+
+    private boolean replay(List<EndpointHitDto> batch, boolean sending) {
+        if (sending) {
+            return send(batch);
+        }
+        spill(batch);
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.client.stats_client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.client.exception.StatisticException;
+import ru.practicum.common.model.HitCounts;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class HitCountsReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public static HitCounts read(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return read(parser);
+        }
+    }
+
+    public static HitCounts read(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return read(parser);
+        }
+    }
+
+    private static HitCounts read(JsonParser parser) throws IOException {
+        HitCounts counts = new HitCounts();
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new StatisticException("Expected a JSON object of event id to hits");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            long id = parseId(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            if (parser.nextToken() != JsonToken.VALUE_NUMBER_INT) {
+                throw new StatisticException(String.format("Expected hits for event id=%d", id));
+            }
+            counts.add(id, parser.getLongValue());
+        }
+
+        return counts;
+    }
+
+    private static long parseId(char[] chars, int offset, int length) {
+        if (length == 0 || length > 18) {
+            throw new StatisticException(String.format("Invalid event id '%s'", new String(chars, offset, length)));
+        }
+
+        long id = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new StatisticException(String.format("Invalid event id '%s'", new String(chars, offset, length)));
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+}
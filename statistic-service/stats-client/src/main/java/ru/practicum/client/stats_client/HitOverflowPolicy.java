@@ -0,0 +1,6 @@
+package ru.practicum.client.stats_client;
+
+public enum HitOverflowPolicy {
+
+    DROP, BLOCK, SPILL
+}
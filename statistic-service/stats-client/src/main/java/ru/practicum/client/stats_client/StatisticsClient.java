@@ -1,13 +1,36 @@
 package ru.practicum.client.stats_client;
 
 import org.springframework.http.ResponseEntity;
+import ru.practicum.common.model.HitCounts;
+import ru.practicum.common.model.StatsQuery;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface StatisticsClient {
 
     ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
 
+    ResponseEntity<Object> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate);
+
+    CompletableFuture<ResponseEntity<Object>> getStatsAsync(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate);
+
+    HitCounts queryStats(StatsQuery query);
+
+    CompletableFuture<HitCounts> queryStatsAsync(StatsQuery query);
+
     void addHit(String app, String ip, String uri, LocalDateTime timestamp);
+
+    CompletableFuture<Void> addHitAsync(String app, String ip, String uri, LocalDateTime timestamp);
 }
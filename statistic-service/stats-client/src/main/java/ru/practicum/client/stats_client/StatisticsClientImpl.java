@@ -1,33 +1,98 @@
 package ru.practicum.client.stats_client;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.util.UriBuilder;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
 import ru.practicum.client.exception.StatisticException;
 import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.HitCounts;
+import ru.practicum.common.model.StatsQuery;
 import ru.practicum.common.util.StatsUtil;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 @Service
-public class StatisticsClientImpl implements StatisticsClient {
+public class StatisticsClientImpl implements StatisticsClient, DisposableBean {
+
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(100);
 
     private final WebClient webClient;
 
+    private final ConnectionProvider connectionProvider;
+
+    private final StatsCircuitBreaker readCircuitBreaker;
+
+    private final StatsCircuitBreaker hitCircuitBreaker;
+
+    private final Duration deadline;
 
-    protected StatisticsClientImpl(@Value("${stats-server.url}") String serverUrl) {
+    private final int readRetries;
+
+    private final HitBatchQueue hitQueue;
+
+
+    protected StatisticsClientImpl(
+            @Value("${stats-server.url}") String serverUrl,
+            @Value("${stats-client.hits.async:false}") boolean asyncHits,
+            @Value("${stats-client.hits.queue-capacity:10000}") int queueCapacity,
+            @Value("${stats-client.hits.batch-size:500}") int batchSize,
+            @Value("${stats-client.hits.flush-interval-ms:1000}") long flushIntervalMs,
+            @Value("${stats-client.hits.overflow-policy:DROP}") HitOverflowPolicy overflowPolicy,
+            @Value("${stats-client.hits.block-timeout-ms:50}") long blockTimeoutMs,
+            @Value("${stats-client.hits.spill-file:${java.io.tmpdir}/ewm-stats-hits.spill}") Path spillFile,
+            @Value("${stats-client.pool.max-connections:50}") int maxConnections,
+            @Value("${stats-client.pool.pending-acquire-timeout:1s}") Duration pendingAcquireTimeout,
+            @Value("${stats-client.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${stats-client.connect-timeout:1s}") Duration connectTimeout,
+            @Value("${stats-client.response-timeout:2s}") Duration responseTimeout,
+            @Value("${stats-client.deadline:3s}") Duration deadline,
+            @Value("${stats-client.read-retries:1}") int readRetries,
+            @Value("${stats-client.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${stats-client.circuit.open-duration:10s}") Duration openDuration,
+            MeterRegistry meterRegistry) {
+        this.connectionProvider = ConnectionProvider.builder("stats-client")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+
+        this.readCircuitBreaker = new StatsCircuitBreaker("reads", failureThreshold, openDuration, meterRegistry);
+        this.hitCircuitBreaker = new StatsCircuitBreaker("hits", failureThreshold, openDuration, meterRegistry);
+        this.deadline = deadline;
+        this.readRetries = readRetries;
         this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .defaultHeaders(httpHeaders -> {
                     httpHeaders.setContentType(MediaType.APPLICATION_JSON);
                     httpHeaders.setAccept(List.of(MediaType.APPLICATION_JSON));
@@ -35,11 +100,16 @@ public class StatisticsClientImpl implements StatisticsClient {
                 .baseUrl(serverUrl)
                 .filter(handleError())
                 .build();
+
+        this.hitQueue = asyncHits
+                ? new HitBatchQueue(queueCapacity, batchSize, flushIntervalMs, overflowPolicy, blockTimeoutMs,
+                        spillFile, this::sendHits, meterRegistry)
+                : null;
     }
 
     private ExchangeFilterFunction handleError() {
         return ExchangeFilterFunction.ofResponseProcessor(clientResponse -> {
-            if (clientResponse.statusCode().isError()) {
+            if (clientResponse.statusCode().is4xxClientError()) {
                 HttpHeaders httpHeaders = clientResponse.headers().asHttpHeaders();
                 if (httpHeaders.containsKey("X-Error-Class")) {
                     return clientResponse.bodyToMono(String.class)
@@ -52,13 +122,87 @@ public class StatisticsClientImpl implements StatisticsClient {
 
     @Override
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return getStats(start, end, uris, unique, false);
+    }
+
+    @Override
+    public ResponseEntity<Object> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate) {
+        return statsRequest(start, end, uris, unique, approximate).block();
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Object>> getStatsAsync(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate) {
+        return statsRequest(start, end, uris, unique, approximate).toFuture();
+    }
+
+    @Override
+    public HitCounts queryStats(StatsQuery query) {
+        return queryRequest(query).block();
+    }
+
+    @Override
+    public CompletableFuture<HitCounts> queryStatsAsync(StatsQuery query) {
+        return queryRequest(query).toFuture();
+    }
+
+    @Override
+    public void addHit(String app, String ip, String uri, LocalDateTime timestamp) {
+        EndpointHitDto endpointHitDto = toEndpointHitDto(app, ip, uri, timestamp);
+
+        if (hitQueue != null) {
+            hitQueue.offer(endpointHitDto);
+            return;
+        }
+
+        sendHit(endpointHitDto);
+    }
 
+    @Override
+    public CompletableFuture<Void> addHitAsync(String app, String ip, String uri, LocalDateTime timestamp) {
+        EndpointHitDto endpointHitDto = toEndpointHitDto(app, ip, uri, timestamp);
+
+        if (hitQueue != null) {
+            hitQueue.offer(endpointHitDto);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return hitRequest(endpointHitDto).toFuture();
+    }
+
+    @Override
+    public void destroy() {
+        if (hitQueue != null) {
+            hitQueue.close();
+        }
+        connectionProvider.dispose();
+    }
+
+    private Mono<ResponseEntity<Object>> statsRequest(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate) {
         Function<UriBuilder, URI> uriFunction = uriBuilder -> {
             UriBuilder builder = uriBuilder.path("/stats")
                     .queryParam("start", start.format(StatsUtil.DATE_TIME_FORMATTER))
                     .queryParam("end", end.format(StatsUtil.DATE_TIME_FORMATTER))
                     .queryParam("unique", unique);
 
+            if (approximate) {
+                builder.queryParam("approximate", true);
+            }
+
             if (uris != null && !uris.isEmpty()) {
                 String urisString = String.join(",", uris);
                 builder.queryParam("uris", urisString);
@@ -66,27 +210,70 @@ public class StatisticsClientImpl implements StatisticsClient {
             return builder.build();
         };
 
-        return executeRequest(HttpMethod.GET, uriFunction, null, Object.class);
+        return guard(executeRequest(HttpMethod.GET, uriFunction, null, Object.class), readCircuitBreaker, true);
     }
 
-    @Override
-    public void addHit(String app, String ip, String uri, LocalDateTime timestamp) {
-        EndpointHitDto endpointHitDto = EndpointHitDto.builder()
+    private Mono<HitCounts> queryRequest(StatsQuery query) {
+        return guard(DataBufferUtils.join(webClient.post()
+                        .uri("/stats/query")
+                        .bodyValue(query)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class))
+                .map(this::readHitCounts)
+                .defaultIfEmpty(new HitCounts()), readCircuitBreaker, true);
+    }
+
+    private <T> Mono<T> guard(Mono<T> call, StatsCircuitBreaker circuitBreaker, boolean idempotent) {
+        Mono<T> attempts = idempotent && readRetries > 0
+                ? call.retryWhen(Retry.backoff(readRetries, RETRY_BACKOFF)
+                        .filter(WebClientRequestException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                : call;
+
+        return circuitBreaker.protect(attempts.timeout(deadline));
+    }
+
+    private EndpointHitDto toEndpointHitDto(String app, String ip, String uri, LocalDateTime timestamp) {
+        return EndpointHitDto.builder()
                 .app(app)
                 .ip(ip)
                 .uri(uri)
                 .timestamp(timestamp.format(StatsUtil.DATE_TIME_FORMATTER))
                 .build();
+    }
+
+    private HitCounts readHitCounts(DataBuffer body) {
+        try (InputStream in = body.asInputStream(true)) {
+            return HitCountsReader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void sendHits(List<EndpointHitDto> hits) {
+        Function<UriBuilder, URI> uriFunction = uriBuilder -> {
+            UriBuilder builder = uriBuilder.path("/hit/batch");
+            return builder.build();
+        };
+
+        guard(executeRequest(HttpMethod.POST, uriFunction, hits, Object.class), hitCircuitBreaker, false).block();
+    }
+
+    private void sendHit(EndpointHitDto endpointHitDto) {
+        hitRequest(endpointHitDto).block();
+    }
 
+    private Mono<Void> hitRequest(EndpointHitDto endpointHitDto) {
         Function<UriBuilder, URI> uriFunction = uriBuilder -> {
             UriBuilder builder = uriBuilder.path("/hit");
             return builder.build();
         };
 
-        executeRequest(HttpMethod.POST, uriFunction, endpointHitDto, Object.class);
+        return guard(executeRequest(HttpMethod.POST, uriFunction, endpointHitDto, Object.class), hitCircuitBreaker, false)
+                .then();
     }
 
-    private <T> ResponseEntity<Object> executeRequest(HttpMethod method, Function<UriBuilder, URI> uriFunction, T requestBody, Class<Object> responseType) {
+    private <T> Mono<ResponseEntity<Object>> executeRequest(HttpMethod method, Function<UriBuilder, URI> uriFunction, T requestBody, Class<Object> responseType) {
         return webClient.method(method)
                 .uri(uriFunction)
                 .body(requestBody != null ? BodyInserters.fromValue(requestBody) : BodyInserters.empty())
@@ -94,9 +281,9 @@ public class StatisticsClientImpl implements StatisticsClient {
                     if (response.statusCode().is2xxSuccessful()) {
                         return response.toEntity(responseType);
                     } else {
-                        return Mono.just(ResponseEntity.status(response.rawStatusCode()).body(response.toEntity(String.class)));
+                        return response.createException().flatMap(Mono::error);
                     }
-                }).block();
+                });
     }
 }
 
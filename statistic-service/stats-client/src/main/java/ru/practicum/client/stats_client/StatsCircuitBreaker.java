@@ -0,0 +1,113 @@
+package ru.practicum.client.stats_client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import ru.practicum.client.exception.StatisticUnavailableException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+class StatsCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    private volatile long openedAt;
+
+    private final Counter rejectedCalls;
+
+    private final Counter failedCalls;
+
+    StatsCircuitBreaker(String name, int failureThreshold, Duration openDuration, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.rejectedCalls = meterRegistry.counter("stats.client.circuit.rejected", "circuit", name);
+        this.failedCalls = meterRegistry.counter("stats.client.circuit.failures", "circuit", name);
+        meterRegistry.gauge("stats.client.circuit.open", Tags.of("circuit", name), state,
+                s -> s.get() == State.CLOSED ? 0 : 1);
+    }
+
+    State getState() {
+        return state.get();
+    }
+
+    <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            State current = state.get();
+            if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos
+                    && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                log.info("Stats-server {} circuit is half-open, sending a trial call.", name);
+                current = State.HALF_OPEN;
+            }
+
+            boolean trial = current == State.HALF_OPEN;
+            if (current == State.OPEN || trial && !trialInFlight.compareAndSet(false, true)) {
+                rejectedCalls.increment();
+                return Mono.error(new StatisticUnavailableException(
+                        String.format("The stats-server %s circuit is open", name)));
+            }
+
+            return call
+                    .doOnSuccess(value -> onSuccess())
+                    .doOnError(this::onError)
+                    .doFinally(signal -> {
+                        if (trial) {
+                            trialInFlight.set(false);
+                        }
+                    })
+                    .onErrorMap(StatsCircuitBreaker::isUnavailable,
+                            e -> new StatisticUnavailableException("The stats-server is unavailable: " + e, e));
+        });
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Stats-server {} circuit is closed again.", name);
+        }
+    }
+
+    private void onError(Throwable e) {
+        if (!isUnavailable(e)) {
+            onSuccess();
+            return;
+        }
+
+        failedCalls.increment();
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("Stats-server {} circuit is open for {} ms after: {}", name, openNanos / 1_000_000, e.toString());
+            }
+        }
+    }
+
+    static boolean isUnavailable(Throwable e) {
+        return e instanceof TimeoutException
+                || e instanceof WebClientRequestException
+                || e instanceof WebClientResponseException && ((WebClientResponseException) e).getRawStatusCode() >= 500;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.practicum.client.stats_client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.common.model.EndpointHitDto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitBatchQueueTest {
+
+    private static final int CAPACITY = 2;
+
+    @Test
+    void overflowIsSpilledByTheFlusherAndDroppedOnceItIsFull() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<String> senders = new CopyOnWriteArrayList<>();
+        List<EndpointHitDto> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        HitBatchQueue queue = new HitBatchQueue(CAPACITY, 100, 60_000, HitOverflowPolicy.SPILL, 50,
+                spillFile(), batch -> {
+                    sending.countDown();
+                    await(release);
+                    senders.add(Thread.currentThread().getName());
+                    sent.addAll(batch);
+                }, meterRegistry);
+
+        try {
+            for (int i = 0; i < CAPACITY + 1; i++) {
+                queue.offer(hit(i));
+            }
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            for (int i = CAPACITY + 1; i < 3 * CAPACITY + 2; i++) {
+                queue.offer(hit(i));
+            }
+            assertEquals(1.0, meterRegistry.counter("stats.client.hits.dropped").count());
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (sent.size() < 3 * CAPACITY + 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            queue.close();
+        }
+
+        assertEquals(3 * CAPACITY + 1, sent.size());
+        assertTrue(senders.stream().allMatch("stats-hit-flusher"::equals), senders.toString());
+    }
+
+    private static Path spillFile() throws IOException {
+        Path spillFile = Files.createTempFile("hit-batch-queue-test", ".spill");
+        Files.delete(spillFile);
+        spillFile.toFile().deleteOnExit();
+        return spillFile;
+    }
+
+    private static EndpointHitDto hit(int i) {
+        return EndpointHitDto.builder()
+                .app("ewm-main-service")
+                .uri("/events/" + i)
+                .ip("10.0.0.1")
+                .timestamp("2022-09-06 11:00:00")
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
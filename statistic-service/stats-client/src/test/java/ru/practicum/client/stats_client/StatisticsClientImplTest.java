@@ -0,0 +1,143 @@
+package ru.practicum.client.stats_client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.client.exception.StatisticException;
+import ru.practicum.client.exception.StatisticUnavailableException;
+import ru.practicum.common.model.StatsQuery;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatisticsClientImplTest {
+
+    private static final int FAILURE_THRESHOLD = 2;
+
+    private static final LocalDateTime START = LocalDateTime.of(2022, 9, 6, 10, 0);
+
+    private static final LocalDateTime END = LocalDateTime.of(2022, 9, 6, 12, 0);
+
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+
+    private HttpServer server;
+
+    private StatisticsClientImpl client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hit", exchange -> respond(exchange, "/hit", 201, "{}"));
+        server.createContext("/stats", exchange -> respond(exchange, "/stats", 200, "[]"));
+        server.createContext("/stats/query", exchange -> respond(exchange, "/stats/query", 200, "{}"));
+        server.start();
+
+        client = new StatisticsClientImpl(
+                "http://localhost:" + server.getAddress().getPort(),
+                false, 100, 10, 1000, HitOverflowPolicy.DROP, 50,
+                Files.createTempFile("stats-client-test", ".spill"),
+                10, Duration.ofSeconds(1), Duration.ofSeconds(30),
+                Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(3),
+                0, FAILURE_THRESHOLD, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void serverErrorsOpenTheReadCircuit() {
+        statuses.put("/stats", 500);
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(StatisticUnavailableException.class, () -> client.getStats(START, END, null, false));
+        }
+        StatisticUnavailableException e = assertThrows(StatisticUnavailableException.class,
+                () -> client.getStats(START, END, null, false));
+
+        assertTrue(e.getMessage().contains("circuit is open"), e.getMessage());
+        assertEquals(FAILURE_THRESHOLD, calls.get("/stats").get());
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        statuses.put("/stats", 400);
+
+        for (int i = 0; i <= FAILURE_THRESHOLD; i++) {
+            StatisticException e = assertThrows(StatisticException.class, () -> client.getStats(START, END, null, false));
+            assertFalse(e instanceof StatisticUnavailableException, e.getMessage());
+        }
+
+        assertEquals(FAILURE_THRESHOLD + 1, calls.get("/stats").get());
+    }
+
+    @Test
+    void hitFailuresDoNotOpenTheReadCircuit() {
+        statuses.put("/hit", 503);
+
+        for (int i = 0; i <= FAILURE_THRESHOLD; i++) {
+            assertThrows(StatisticUnavailableException.class,
+                    () -> client.addHit("ewm-main-service", "10.0.0.1", "/events/1", START));
+        }
+
+        assertEquals(200, client.getStats(START, END, List.of("/events/1"), false).getStatusCodeValue());
+        assertEquals(FAILURE_THRESHOLD, calls.get("/hit").get());
+    }
+
+    @Test
+    void queryStatsSendsDatesInTheStatsFormat() {
+        client.queryStats(StatsQuery.builder()
+                .start(START)
+                .end(END)
+                .uriPrefix("/events/")
+                .ids(List.of(1L))
+                .build());
+
+        String body = bodies.get("/stats/query");
+        assertTrue(body.contains("\"start\":\"2022-09-06 10:00:00\""), body);
+        assertTrue(body.contains("\"end\":\"2022-09-06 12:00:00\""), body);
+    }
+
+    private void respond(HttpExchange exchange, String path, int okStatus, String okBody) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            bodies.put(path, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        calls.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+
+        int status = statuses.getOrDefault(path, okStatus);
+        byte[] bytes = (status < 400 ? okBody : "{\"error\":\"failure\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (status >= 400) {
+            exchange.getResponseHeaders().set("X-Error-Class", "RuntimeException");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
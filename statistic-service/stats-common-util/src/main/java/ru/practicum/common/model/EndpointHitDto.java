@@ -4,18 +4,28 @@ import lombok.Builder;
 import lombok.Getter;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 @Builder
 @Getter
 public class EndpointHitDto {
 
+    public static final int MAX_APP_LENGTH = 50;
+
+    public static final int MAX_URI_LENGTH = 50;
+
+    public static final int MAX_IP_LENGTH = 45;
+
     @NotBlank(message = "The app name cannot be empty.")
+    @Size(max = MAX_APP_LENGTH, message = "The app name cannot be longer than " + MAX_APP_LENGTH + " characters.")
     private String app;
 
     @NotBlank(message = "URI cannot be empty.")
+    @Size(max = MAX_URI_LENGTH, message = "URI cannot be longer than " + MAX_URI_LENGTH + " characters.")
     private String uri;
 
     @NotBlank(message = "IP cannot be empty.")
+    @Size(max = MAX_IP_LENGTH, message = "IP cannot be longer than " + MAX_IP_LENGTH + " characters.")
     private String ip;
 
     @NotBlank(message = "Timestamp cannot be empty.")
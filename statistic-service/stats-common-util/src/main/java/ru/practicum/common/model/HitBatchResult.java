@@ -0,0 +1,15 @@
+package ru.practicum.common.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitBatchResult {
+
+    private long accepted;
+}
@@ -0,0 +1,120 @@
+package ru.practicum.common.model;
+
+public class HitCounts {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] ids;
+
+    private long[] hits;
+
+    private boolean[] used;
+
+    private int size;
+
+    public HitCounts() {
+        this(MIN_CAPACITY);
+    }
+
+    public HitCounts(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public void add(long id, long count) {
+        int slot = find(id);
+        if (used[slot]) {
+            hits[slot] += count;
+            return;
+        }
+
+        ids[slot] = id;
+        hits[slot] = count;
+        used[slot] = true;
+        if (++size * 2 > ids.length) {
+            rehash(ids.length << 1);
+        }
+    }
+
+    public long get(long id) {
+        int slot = find(id);
+        return used[slot] ? hits[slot] : 0;
+    }
+
+    public boolean contains(long id) {
+        return used[find(id)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(IdHitsConsumer consumer) {
+        for (int i = 0; i < ids.length; i++) {
+            if (used[i]) {
+                consumer.accept(ids[i], hits[i]);
+            }
+        }
+    }
+
+    private int find(long id) {
+        int mask = ids.length - 1;
+        int slot = mix(id) & mask;
+        while (used[slot] && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldIds = ids;
+        long[] oldHits = hits;
+        boolean[] oldUsed = used;
+
+        allocate(capacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldIds[i]);
+                ids[slot] = oldIds[i];
+                hits[slot] = oldHits[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        hits = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static int mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((id, count) -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(id).append('=').append(count);
+        });
+        return builder.append('}').toString();
+    }
+
+    @FunctionalInterface
+    public interface IdHitsConsumer {
+
+        void accept(long id, long hits);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.common.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import ru.practicum.common.util.StatsUtil;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQuery {
+
+    public static final int MAX_IDS = 1000;
+
+    @NotNull(message = "Start cannot be empty.")
+    @JsonFormat(pattern = StatsUtil.DATE_TIME_FORMAT, shape = JsonFormat.Shape.STRING)
+    private LocalDateTime start;
+
+    @NotNull(message = "End cannot be empty.")
+    @JsonFormat(pattern = StatsUtil.DATE_TIME_FORMAT, shape = JsonFormat.Shape.STRING)
+    private LocalDateTime end;
+
+    @NotBlank(message = "URI prefix cannot be empty.")
+    private String uriPrefix;
+
+    @Size(max = MAX_IDS, message = "No more than " + MAX_IDS + " ids per query.")
+    private List<Long> ids;
+
+    private boolean unique;
+
+    private boolean approximate;
+}
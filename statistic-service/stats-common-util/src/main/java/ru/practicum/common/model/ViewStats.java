@@ -6,12 +6,21 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.util.Comparator;
+
 @Builder
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
 public class ViewStats {
 
+    /**
+     * Order of every /stats response: most hits first, ties by app and then uri.
+     */
+    public static final Comparator<ViewStats> ORDER = Comparator.comparing(ViewStats::getHits).reversed()
+            .thenComparing(ViewStats::getApp)
+            .thenComparing(ViewStats::getUri);
+
     private String app;
 
     private String uri;
@@ -0,0 +1,79 @@
+-- Reproducible endpoint_hit dataset for checking /stats query plans.
+--
+-- Run against a database that stats-server has already migrated:
+--   psql -h localhost -p 6541 -U root -d statistic_ewm -v rows=10000000 -f perf/endpoint_hit_dataset.sql
+--
+-- The data is deterministic for a given row count: 10 apps, 5000 uris with a skewed
+-- popularity, 200000 ips and timestamps spread evenly over the last 365 days in
+-- insertion order. Each query is explained twice, first with index access disabled
+-- (the plan the table had with only a primary key) and then with the indexes from
+-- V2__endpoint_hit_indexes.sql, as rebuilt on app/uri ids by V4__dictionary_encode_endpoint_hit.sql.
+
+\if :{?rows}
+\else
+\set rows 10000000
+\endif
+
+\timing on
+
+TRUNCATE endpoint_hit, hit_rollup_minute, hit_rollup_hour, stats_app, stats_uri RESTART IDENTITY;
+
+SELECT setseed(0.42);
+
+INSERT INTO stats_app (name) SELECT 'ewm-app-' || n FROM generate_series(0, 9) AS n;
+
+INSERT INTO stats_uri (uri) SELECT '/events/' || n FROM generate_series(0, 4999) AS n;
+
+-- Ids follow insertion order: app_id = n % 10 + 1, uri_id = event number + 1, ips are 4 raw bytes.
+INSERT INTO endpoint_hit (app_id, uri_id, user_ip, created)
+SELECT 1 + n % 10,
+       1 + floor(5000 * power(random(), 3))::int,
+       decode('0a' || lpad(to_hex(n % 200000), 6, '0'), 'hex'),
+       now()::timestamp - interval '365 days' + (n * (interval '365 days' / :rows))
+FROM generate_series(1, :rows) AS n;
+
+VACUUM ANALYZE endpoint_hit;
+
+SELECT pg_size_pretty(pg_relation_size('endpoint_hit')) AS heap,
+       pg_size_pretty(pg_relation_size('idx_endpoint_hit_created_brin')) AS brin_created,
+       pg_size_pretty(pg_relation_size('idx_endpoint_hit_uri_created')) AS btree_uri_created;
+
+\echo '=== uris filter, 7 day window, without indexes ==='
+BEGIN;
+SET LOCAL enable_indexscan = off;
+SET LOCAL enable_indexonlyscan = off;
+SET LOCAL enable_bitmapscan = off;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(DISTINCT user_ip)
+FROM endpoint_hit
+WHERE uri_id IN (2, 3, 4, 11, 101)
+  AND created BETWEEN now()::timestamp - interval '7 days' AND now()::timestamp
+GROUP BY app_id, uri_id;
+COMMIT;
+
+\echo '=== uris filter, 7 day window, with indexes ==='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(DISTINCT user_ip)
+FROM endpoint_hit
+WHERE uri_id IN (2, 3, 4, 11, 101)
+  AND created BETWEEN now()::timestamp - interval '7 days' AND now()::timestamp
+GROUP BY app_id, uri_id;
+
+\echo '=== all uris, 1 day window, without indexes ==='
+BEGIN;
+SET LOCAL enable_indexscan = off;
+SET LOCAL enable_indexonlyscan = off;
+SET LOCAL enable_bitmapscan = off;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(*)
+FROM endpoint_hit
+WHERE created BETWEEN now()::timestamp - interval '1 day' AND now()::timestamp
+GROUP BY app_id, uri_id;
+COMMIT;
+
+\echo '=== all uris, 1 day window, with indexes ==='
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app_id, uri_id, COUNT(*)
+FROM endpoint_hit
+WHERE created BETWEEN now()::timestamp - interval '1 day' AND now()::timestamp
+GROUP BY app_id, uri_id;
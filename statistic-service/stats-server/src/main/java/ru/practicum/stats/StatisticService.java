@@ -3,9 +3,11 @@ package ru.practicum.stats;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 
+@EnableScheduling
 @SpringBootApplication
 public class StatisticService {
     public static void main(String[] args) {
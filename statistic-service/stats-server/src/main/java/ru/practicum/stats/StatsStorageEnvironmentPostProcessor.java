@@ -0,0 +1,46 @@
+package ru.practicum.stats;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the hit-log engine free of a database: with {@code stats.storage=hit-log} the data source, JPA and
+ * Flyway auto-configurations are excluded, so the server starts without PostgreSQL.
+ */
+public class StatsStorageEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+
+    private static final List<String> DATABASE_AUTO_CONFIGURATIONS = List.of(
+            DataSourceAutoConfiguration.class.getName(),
+            DataSourceTransactionManagerAutoConfiguration.class.getName(),
+            HibernateJpaAutoConfiguration.class.getName(),
+            FlywayAutoConfiguration.class.getName());
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!"hit-log".equals(environment.getProperty("stats.storage"))) {
+            return;
+        }
+
+        List<String> excluded = new ArrayList<>(DATABASE_AUTO_CONFIGURATIONS);
+        String configured = environment.getProperty(EXCLUDE_PROPERTY);
+        if (StringUtils.hasText(configured)) {
+            excluded.addAll(StringUtils.commaDelimitedListToSet(configured));
+        }
+
+        environment.getPropertySources().addFirst(new MapPropertySource("statsStorage",
+                Map.of(EXCLUDE_PROPERTY, String.join(",", excluded))));
+    }
+}
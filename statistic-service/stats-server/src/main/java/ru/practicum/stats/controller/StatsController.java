@@ -1,9 +1,13 @@
 package ru.practicum.stats.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -11,13 +15,20 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.HitBatchResult;
+import ru.practicum.common.model.StatsQuery;
 import ru.practicum.common.model.ViewStats;
 import ru.practicum.stats.sevice.StatsService;
 import ru.practicum.common.util.StatsUtil;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -26,6 +37,7 @@ public class StatsController {
 
     private final StatsService statsService;
 
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -34,13 +46,75 @@ public class StatsController {
         return statsService.addHit(endpointHitDto);
     }
 
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResult addHits(@RequestBody List<EndpointHitDto> endpointHitDtos) {
+        log.info("Post request at /hit/batch with {} hits.", endpointHitDtos.size());
+        return statsService.addHits(endpointHitDtos.iterator());
+    }
+
+    @PostMapping(value = "/hit/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResult addHitsStream(HttpServletRequest request) throws IOException {
+        log.info("Post request at /hit/batch with NDJSON body.");
+        try (MappingIterator<EndpointHitDto> endpointHitDtos = objectMapper
+                .readerFor(EndpointHitDto.class)
+                .readValues(request.getInputStream())) {
+            return statsService.addHits(endpointHitDtos);
+        }
+    }
+
     @GetMapping("/stats")
     public List<ViewStats> getStats(
             @DateTimeFormat(pattern = StatsUtil.DATE_TIME_FORMAT) @RequestParam LocalDateTime start,
             @DateTimeFormat(pattern = StatsUtil.DATE_TIME_FORMAT) @RequestParam LocalDateTime end,
             @RequestParam(required = false) List<String> uris,
-            @RequestParam(required = false) boolean unique) {
-        log.info("Get request at [/stats]. Params: {}, {}, {}, {}.", start, end, uris, unique);
-        return statsService.getStats(start, end, uris, unique);
+            @RequestParam(required = false) boolean unique,
+            @RequestParam(required = false) boolean approximate,
+            @RequestParam(required = false) Integer top,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Get request at [/stats]. Params: {}, {}, {}, {}, {}, {}, {}.",
+                start, end, uris, unique, approximate, top, limit);
+        return statsService.getStats(start, end, uris, unique, approximate, top, limit);
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamStats(
+            @DateTimeFormat(pattern = StatsUtil.DATE_TIME_FORMAT) @RequestParam LocalDateTime start,
+            @DateTimeFormat(pattern = StatsUtil.DATE_TIME_FORMAT) @RequestParam LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(required = false) boolean unique,
+            @RequestParam(required = false) boolean approximate,
+            @RequestParam(required = false) Integer top,
+            @RequestParam(required = false) Integer limit,
+            HttpServletResponse response) throws IOException {
+        log.info("Get request at [/stats] as NDJSON. Params: {}, {}, {}, {}, {}, {}, {}.",
+                start, end, uris, unique, approximate, top, limit);
+        if (approximate) {
+            // The error body can't be negotiated as NDJSON, so the status is set here rather than by ErrorHandler.
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Approximate counts are not available as NDJSON");
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            statsService.streamStats(start, end, uris, unique, top, limit, viewStats -> {
+                try {
+                    generator.writeObject(viewStats);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @PostMapping("/stats/query")
+    public Map<Long, Long> queryStats(@Valid @RequestBody StatsQuery query) {
+        log.info("Post request at [/stats/query]. Params: {}, {}, {}, {} ids, {}, {}.", query.getStart(), query.getEnd(),
+                query.getUriPrefix(), query.getIds() == null ? "all" : query.getIds().size(), query.isUnique(),
+                query.isApproximate());
+        return statsService.getHitsById(query);
     }
 }
@@ -8,14 +8,18 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.practicum.common.util.StatsUtil;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
@@ -85,6 +89,44 @@ public class ErrorHandler {
 
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ErrorResponse> handleConstraintViolationException(
+            final ConstraintViolationException ex,
+            final WebRequest request) {
+        String errors = ex.getConstraintViolations()
+                .stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(" "));
+        String path = request.getDescription(false).substring(4);
+        log.error("[VALIDATION ERROR]: Path: {}; Message: {}.", path, ex);
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now().format(StatsUtil.DATE_TIME_FORMATTER),
+                HttpStatus.BAD_REQUEST.value(),
+                path,
+                errors
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).header("X-Error-Class", ex.getClass().getSimpleName()).body(error);
+    }
+
+    @ExceptionHandler({MethodArgumentTypeMismatchException.class, HttpMessageNotReadableException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ErrorResponse> handleUnreadableRequestException(final Exception ex, final WebRequest request) {
+        String path = request.getDescription(false).substring(4);
+        log.error("[UNREADABLE REQUEST]: Path: {}; Message: {}.", path, ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now().format(StatsUtil.DATE_TIME_FORMATTER),
+                HttpStatus.BAD_REQUEST.value(),
+                path,
+                ex.getMessage()
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).header("X-Error-Class", ex.getClass().getSimpleName()).body(error);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<ErrorResponse> handleExceptionError(final Exception ex, final WebRequest request) {
@@ -98,7 +140,7 @@ public class ErrorHandler {
                 ex.getMessage()
         );
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).header("X-Error-Class", ex.getClass().getSimpleName()).body(error);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).header("X-Error-Class", ex.getClass().getSimpleName()).body(error);
 
     }
 
@@ -0,0 +1,118 @@
+package ru.practicum.stats.mapper;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores ips as 4 bytes for IPv4 and 16 bytes for IPv6 written in the uncompressed form servlet containers
+ * report. Anything else is kept as UTF-8 text, padded with a zero byte when its length would be 4 or 16, so
+ * every value maps back to exactly the string it was written from.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class IpMapper {
+
+    private static final int IPV4_BYTES = 4;
+
+    private static final int IPV6_BYTES = 16;
+
+    public static byte[] toBytes(String ip) {
+        byte[] bytes = ip.indexOf(':') < 0 ? parseIpv4(ip) : parseIpv6(ip);
+        if (bytes != null) {
+            return bytes;
+        }
+
+        bytes = ip.getBytes(StandardCharsets.UTF_8);
+        return bytes.length == IPV4_BYTES || bytes.length == IPV6_BYTES
+                ? Arrays.copyOf(bytes, bytes.length + 1)
+                : bytes;
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes.length == IPV4_BYTES) {
+            return (bytes[0] & 0xff) + "." + (bytes[1] & 0xff) + "." + (bytes[2] & 0xff) + "." + (bytes[3] & 0xff);
+        }
+
+        if (bytes.length == IPV6_BYTES) {
+            StringBuilder ip = new StringBuilder(39);
+            for (int i = 0; i < IPV6_BYTES; i += 2) {
+                if (i > 0) {
+                    ip.append(':');
+                }
+                ip.append(Integer.toHexString((bytes[i] & 0xff) << 8 | bytes[i + 1] & 0xff));
+            }
+            return ip.toString();
+        }
+
+        int length = bytes.length;
+        if ((length == IPV4_BYTES + 1 || length == IPV6_BYTES + 1) && bytes[length - 1] == 0) {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] bytes = new byte[IPV4_BYTES];
+        int group = 0;
+        int start = 0;
+
+        for (int i = 0; i <= ip.length(); i++) {
+            if (i < ip.length() && ip.charAt(i) != '.') {
+                continue;
+            }
+            Integer value = parseGroup(ip, start, i, 10, 3, 255);
+            if (value == null || group == IPV4_BYTES) {
+                return null;
+            }
+            bytes[group++] = (byte) (int) value;
+            start = i + 1;
+        }
+
+        return group == IPV4_BYTES ? bytes : null;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        byte[] bytes = new byte[IPV6_BYTES];
+        int group = 0;
+        int start = 0;
+
+        for (int i = 0; i <= ip.length(); i++) {
+            if (i < ip.length() && ip.charAt(i) != ':') {
+                continue;
+            }
+            Integer value = parseGroup(ip, start, i, 16, 4, 0xffff);
+            if (value == null || group == IPV6_BYTES / 2) {
+                return null;
+            }
+            bytes[2 * group] = (byte) (value >> 8);
+            bytes[2 * group + 1] = (byte) (int) value;
+            group++;
+            start = i + 1;
+        }
+
+        return group == IPV6_BYTES / 2 ? bytes : null;
+    }
+
+    private static Integer parseGroup(String ip, int from, int to, int radix, int maxDigits, int maxValue) {
+        int length = to - from;
+        if (length == 0 || length > maxDigits || length > 1 && ip.charAt(from) == '0') {
+            return null;
+        }
+
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * radix + c - '0';
+            } else if (radix == 16 && c >= 'a' && c <= 'f') {
+                value = value * radix + c - 'a' + 10;
+            } else {
+                return null;
+            }
+        }
+
+        return value <= maxValue ? value : null;
+    }
+}
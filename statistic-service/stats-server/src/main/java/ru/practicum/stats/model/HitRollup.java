@@ -0,0 +1,30 @@
+package ru.practicum.stats.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+public class HitRollup {
+
+    private LocalDateTime bucket;
+
+    private int appId;
+
+    private int uriId;
+
+    private String app;
+
+    private String uri;
+
+    private long hits;
+
+    private HyperLogLog ipSketch;
+}
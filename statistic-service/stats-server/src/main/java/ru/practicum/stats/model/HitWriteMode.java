@@ -0,0 +1,29 @@
+package ru.practicum.stats.model;
+
+/**
+ * How {@code POST /hit} writes, set by {@code stats.write-behind.mode}.
+ */
+public enum HitWriteMode {
+
+    /**
+     * Each request commits its own hits before it is answered.
+     */
+    SYNC,
+    /**
+     * Hits are acknowledged once queued in memory and committed in groups; acknowledged hits that were not
+     * committed yet are lost if the process dies.
+     */
+    BUFFERED,
+    /**
+     * Like {@link #BUFFERED}, but each hit is appended to {@code stats.write-behind.journal.dir} and forced to
+     * disk before it is acknowledged, with concurrent requests sharing one force. Acknowledged hits survive a
+     * process crash and a power loss. Replay is at least once: hits committed just before a crash, whose
+     * journal segment was not released yet, are inserted again on the next start.
+     * <p>
+     * Every request waits for an fsync of the journal. Requests that arrive while a force is running share the
+     * next one, so this costs one disk flush of latency per request (around a millisecond on SSDs, far more on
+     * network or spinning disks) rather than one flush per hit, but a single client sending hits one at a time
+     * is bounded by the flush rate of the disk. Use {@code /hit/batch} or {@link #BUFFERED} where that matters.
+     */
+    JOURNALED
+}
@@ -0,0 +1,17 @@
+package ru.practicum.stats.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class RollupBackfill {
+
+    private final long lastId;
+
+    private final long targetId;
+
+    public boolean isDone() {
+        return lastId >= targetId;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.stats.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+public class WindowPart {
+
+    private final RollupGranularity granularity;
+
+    private final LocalDateTime from;
+
+    private final LocalDateTime to;
+}
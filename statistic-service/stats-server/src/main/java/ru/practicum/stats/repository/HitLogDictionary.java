@@ -0,0 +1,95 @@
+package ru.practicum.stats.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only mapping of strings to dense ids starting at 1. The file holds one length-prefixed UTF-8 entry
+ * per id, so ids are stable across restarts; a torn entry left by a crash is cut off on open.
+ */
+final class HitLogDictionary implements Closeable {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private final DataOutputStream out;
+
+    HitLogDictionary(Path file) throws IOException {
+        long validBytes = 0;
+
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                while (true) {
+                    byte[] name = new byte[in.readUnsignedShort()];
+                    in.readFully(name);
+                    register(new String(name, StandardCharsets.UTF_8));
+                    validBytes += Short.BYTES + name.length;
+                }
+            } catch (EOFException e) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validBytes);
+                }
+            }
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+    }
+
+    Integer find(String name) {
+        return ids.get(name);
+    }
+
+    int intern(String name) throws IOException {
+        Integer id = ids.get(name);
+        return id != null ? id : add(name);
+    }
+
+    synchronized String name(int id) {
+        return names.get(id - 1);
+    }
+
+    synchronized int size() {
+        return names.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private synchronized int add(String name) throws IOException {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+        out.flush();
+
+        return register(name);
+    }
+
+    private int register(String name) {
+        names.add(name);
+        ids.put(name, names.size());
+        return names.size();
+    }
+}
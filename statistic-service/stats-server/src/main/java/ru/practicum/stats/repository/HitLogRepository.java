@@ -0,0 +1,316 @@
+package ru.practicum.stats.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "stats.storage", havingValue = "hit-log")
+public class HitLogRepository implements DisposableBean {
+
+    private static final String SEGMENT_PREFIX = "hits-";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+
+    private final long segmentSeconds;
+
+    private final long segmentBytes;
+
+    private final HitLogDictionary apps;
+
+    private final HitLogDictionary uris;
+
+    private final NavigableMap<Long, List<HitLogSegment>> segments = new ConcurrentSkipListMap<>();
+
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    private HitLogSegment current;
+
+    public HitLogRepository(
+            @Value("${stats.hit-log.dir:stats-hit-log}") Path directory,
+            @Value("${stats.hit-log.segment-duration:1h}") Duration segmentDuration,
+            @Value("${stats.hit-log.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSeconds = segmentDuration.toSeconds();
+        this.segmentBytes = segmentSize.toBytes();
+        this.apps = new HitLogDictionary(directory.resolve("apps.dict"));
+        this.uris = new HitLogDictionary(directory.resolve("uris.dict"));
+
+        if (segmentSeconds <= 0 || segmentBytes < HitLogSegment.HEADER_BYTES + HitLogSegment.RECORD_BYTES) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid hit log segment duration=%s or size=%s", segmentDuration, segmentSize));
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        long hits = 0;
+        for (Path file : files) {
+            HitLogSegment segment = HitLogSegment.open(file);
+            segments.computeIfAbsent(segment.getStart(), start -> new CopyOnWriteArrayList<>()).add(segment);
+            hits += segment.getCount();
+        }
+        log.info("Opened hit log in {}: {} segment files, {} hits, {} uris.", directory, files.size(), hits, uris.size());
+    }
+
+    public synchronized void append(Collection<EndpointHit> hits) {
+        segmentLock.readLock().lock();
+        try {
+            for (EndpointHit hit : hits) {
+                long epochSecond = hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+                int appId = apps.intern(hit.getApp());
+                int uriId = uris.intern(hit.getUri());
+                long ip = encodeIp(hit.getIp());
+
+                if (current == null || !covers(current, epochSecond)
+                        || !current.append(appId, uriId, ip, epochSecond)) {
+                    current = findWritable(epochSecond);
+                    current.append(appId, uriId, ip, epochSecond);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append hits to the hit log", e);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    public List<ViewStats> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uriFilter,
+            boolean unique,
+            boolean approximate) {
+        BitSet uriIds = null;
+        if (uriFilter != null && !uriFilter.isEmpty()) {
+            uriIds = new BitSet();
+            for (String uri : uriFilter) {
+                Integer id = uris.find(uri);
+                if (id != null) {
+                    uriIds.set(id);
+                }
+            }
+            if (uriIds.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        long from = start.toEpochSecond(ZoneOffset.UTC);
+        long to = end.toEpochSecond(ZoneOffset.UTC);
+        Map<Long, Long> hits = new HashMap<>();
+
+        segmentLock.readLock().lock();
+        try {
+            Collection<List<HitLogSegment>> overlapping = segments
+                    .subMap(Math.floorDiv(from, segmentSeconds) * segmentSeconds, true, to, true)
+                    .values();
+
+            if (!unique) {
+                scan(overlapping, from, to, uriIds, (key, ip) -> hits.merge(key, 1L, Long::sum));
+            } else if (approximate) {
+                Map<Long, HyperLogLog> sketches = new HashMap<>();
+                scan(overlapping, from, to, uriIds, (key, ip) ->
+                        sketches.computeIfAbsent(key, k -> new HyperLogLog()).addHash(mix(ip)));
+                sketches.forEach((key, sketch) -> hits.put(key, sketch.estimate()));
+            } else {
+                Map<Long, Set<Long>> visitors = new HashMap<>();
+                scan(overlapping, from, to, uriIds, (key, ip) ->
+                        visitors.computeIfAbsent(key, k -> new HashSet<>()).add(ip));
+                visitors.forEach((key, ipSet) -> hits.put(key, (long) ipSet.size()));
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+
+        List<ViewStats> stats = new ArrayList<>(hits.size());
+        hits.forEach((key, count) ->
+                stats.add(new ViewStats(apps.name((int) (key >>> 32)), uris.name((int) (long) key), count)));
+        stats.sort(ViewStats.ORDER);
+
+        return stats;
+    }
+
+    public void sealBefore(LocalDateTime time) {
+        long slotsBefore = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), segmentSeconds) * segmentSeconds;
+
+        segmentLock.writeLock().lock();
+        try {
+            for (List<HitLogSegment> parts : segments.headMap(slotsBefore, false).values()) {
+                for (HitLogSegment segment : parts) {
+                    if (!segment.isSealed()) {
+                        segment.seal();
+                    }
+                }
+            }
+            if (current != null && current.isSealed()) {
+                current = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to seal hit log segments", e);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    public int deleteBefore(LocalDateTime time) {
+        long slotsBefore = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), segmentSeconds) * segmentSeconds;
+        int deleted = 0;
+
+        segmentLock.writeLock().lock();
+        try {
+            NavigableMap<Long, List<HitLogSegment>> expired = segments.headMap(slotsBefore - segmentSeconds, true);
+            for (List<HitLogSegment> parts : expired.values()) {
+                for (HitLogSegment segment : parts) {
+                    if (segment == current) {
+                        current = null;
+                    }
+                    segment.close();
+                    Files.deleteIfExists(segment.getPath());
+                    deleted++;
+                }
+            }
+            expired.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete expired hit log segments", e);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+
+        return deleted;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        segmentLock.writeLock().lock();
+        try {
+            segments.values().forEach(parts -> parts.forEach(HitLogSegment::close));
+            segments.clear();
+            current = null;
+            apps.close();
+            uris.close();
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    private boolean covers(HitLogSegment segment, long epochSecond) {
+        return epochSecond >= segment.getStart() && epochSecond < segment.getStart() + segmentSeconds;
+    }
+
+    private HitLogSegment findWritable(long epochSecond) throws IOException {
+        long start = Math.floorDiv(epochSecond, segmentSeconds) * segmentSeconds;
+        List<HitLogSegment> parts = segments.computeIfAbsent(start, s -> new CopyOnWriteArrayList<>());
+
+        if (!parts.isEmpty()) {
+            HitLogSegment last = parts.get(parts.size() - 1);
+            if (!last.isSealed()
+                    && last.getCount() < (segmentBytes - HitLogSegment.HEADER_BYTES) / HitLogSegment.RECORD_BYTES) {
+                return last;
+            }
+            last.force();
+        }
+
+        HitLogSegment segment = HitLogSegment.create(directory.resolve(String.format("%s%d-%06d%s",
+                SEGMENT_PREFIX, start, parts.size(), SEGMENT_SUFFIX)), start, segmentBytes);
+        parts.add(segment);
+
+        return segment;
+    }
+
+    private void scan(
+            Collection<List<HitLogSegment>> overlapping,
+            long from,
+            long to,
+            BitSet uriIds,
+            KeyedIpConsumer consumer) {
+        for (List<HitLogSegment> parts : overlapping) {
+            for (HitLogSegment segment : parts) {
+                segment.scan(from, to, (appId, uriId, ip) -> {
+                    if (uriIds == null || uriIds.get(uriId)) {
+                        consumer.accept((long) appId << 32 | uriId, ip);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Packs an IPv4 address into the low 32 bits. Anything else is hashed to 64 bits with the sign bit set,
+     * which keeps it apart from IPv4 values and needs no dictionary; ips are only ever compared, never shown.
+     */
+    private static long encodeIp(String ip) {
+        long address = 0;
+        int octets = 0;
+        int octet = -1;
+
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c >= '0' && c <= '9' && octet < 256) {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+            } else if (c == '.' && octet >= 0 && octet < 256 && octets < 4) {
+                address = address << 8 | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return hashIp(ip);
+            }
+        }
+
+        return octets == 4 ? address : hashIp(ip);
+    }
+
+    private static long hashIp(String ip) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < ip.length(); i++) {
+            hash = (hash ^ ip.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash) | Long.MIN_VALUE;
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    @FunctionalInterface
+    private interface KeyedIpConsumer {
+
+        void accept(long key, long ip);
+    }
+}
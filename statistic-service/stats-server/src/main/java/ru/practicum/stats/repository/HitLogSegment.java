@@ -0,0 +1,187 @@
+package ru.practicum.stats.repository;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped file of fixed-size hit records that all fall into one time slot. The header holds a magic
+ * number and the slot start in epoch seconds; each record is app id, uri id, ip and seconds since the slot
+ * start. The app id is written last and ids start at 1, so the first zero app id marks the end of the data.
+ * A segment is sealed once its slot is over: the file is cut to the records it holds and remapped read-only.
+ * Callers must make sure nobody reads a segment while it is sealed or closed, because both unmap the buffer.
+ */
+final class HitLogSegment {
+
+    static final int HEADER_BYTES = 16;
+
+    static final int RECORD_BYTES = 20;
+
+    private static final int MAGIC = 0x48495431;
+
+    private static final Object UNSAFE;
+
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Without the cleaner a dropped buffer is unmapped when it is garbage collected.
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path path;
+
+    private final long start;
+
+    private MappedByteBuffer buffer;
+
+    private int capacity;
+
+    private volatile int count;
+
+    private boolean sealed;
+
+    private HitLogSegment(Path path, long start, MappedByteBuffer buffer) {
+        this.path = path;
+        this.start = start;
+        this.buffer = buffer;
+        this.capacity = (buffer.capacity() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    static HitLogSegment create(Path path, long start, long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            HitLogSegment segment = new HitLogSegment(path, start, channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes));
+            segment.buffer.putLong(8, start);
+            segment.buffer.putInt(0, MAGIC);
+            return segment;
+        }
+    }
+
+    static HitLogSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a hit log segment: " + path);
+            }
+
+            HitLogSegment segment = new HitLogSegment(path, buffer.getLong(8), buffer);
+            int count = 0;
+            while (count < segment.capacity && buffer.getInt(HEADER_BYTES + count * RECORD_BYTES) != 0) {
+                count++;
+            }
+            segment.count = count;
+            segment.sealed = count == segment.capacity;
+
+            return segment;
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    boolean append(int appId, int uriId, long ip, long epochSecond) {
+        int records = count;
+        if (records == capacity) {
+            return false;
+        }
+
+        int position = HEADER_BYTES + records * RECORD_BYTES;
+        buffer.putInt(position + 4, uriId);
+        buffer.putLong(position + 8, ip);
+        buffer.putInt(position + 16, (int) (epochSecond - start));
+        buffer.putInt(position, appId);
+        count = records + 1;
+
+        return true;
+    }
+
+    void scan(long from, long to, RecordConsumer consumer) {
+        int records = count;
+        long fromOffset = from - start;
+        long toOffset = to - start;
+
+        for (int i = 0; i < records; i++) {
+            int position = HEADER_BYTES + i * RECORD_BYTES;
+            int offset = buffer.getInt(position + 16);
+            if (offset >= fromOffset && offset <= toOffset) {
+                consumer.accept(buffer.getInt(position), buffer.getInt(position + 4), buffer.getLong(position + 8));
+            }
+        }
+    }
+
+    void force() {
+        if (!sealed) {
+            buffer.force();
+        }
+    }
+
+    void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+
+        buffer.force();
+        int records = count;
+        long bytes = HEADER_BYTES + (long) records * RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.truncate(bytes);
+            MappedByteBuffer sealedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            unmap(buffer);
+            buffer = sealedBuffer;
+        }
+        capacity = records;
+        sealed = true;
+    }
+
+    void close() {
+        force();
+        unmap(buffer);
+        buffer = null;
+    }
+
+    private static void unmap(MappedByteBuffer mapped) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, mapped);
+        } catch (ReflectiveOperationException e) {
+            // Left to the garbage collector.
+        }
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+
+        void accept(int appId, int uriId, long ip);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class HitPartitionRepository {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+
+        if (!POSTGRESQL.equals(product)) {
+            return false;
+        }
+
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('endpoint_hit'))",
+                Boolean.class));
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'endpoint_hit'::regclass",
+                String.class);
+    }
+
+    @Transactional
+    public void createPartition(String name, String defaultName, LocalDateTime from, LocalDateTime to) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+
+        jdbcTemplate.execute(String.format("CREATE TABLE %s (LIKE endpoint_hit INCLUDING DEFAULTS)", name));
+        jdbcTemplate.update(String.format(
+                "WITH moved AS (DELETE FROM %s WHERE created >= ? AND created < ? RETURNING *) " +
+                        "INSERT INTO %s SELECT * FROM moved", defaultName, name),
+                fromTs, toTs);
+        jdbcTemplate.execute(String.format(
+                "ALTER TABLE endpoint_hit ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                name, fromTs, toTs));
+    }
+
+    public int deleteBefore(String name, LocalDateTime created) {
+        return jdbcTemplate.update(String.format("DELETE FROM %s WHERE created < ?", name), Timestamp.valueOf(created));
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute(String.format("DROP TABLE IF EXISTS %s", name));
+    }
+}
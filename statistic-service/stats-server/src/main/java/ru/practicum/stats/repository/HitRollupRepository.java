@@ -0,0 +1,165 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.HitRollup;
+import ru.practicum.stats.model.RollupBackfill;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class HitRollupRepository {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final String POSTGRESQL_UPSERT = "INSERT INTO %1$s AS r (bucket, app_id, uri_id, hits, ip_sketch) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (bucket, app_id, uri_id) DO UPDATE SET hits = r.hits + EXCLUDED.hits";
+
+    private static final String MERGE_UPSERT = "MERGE INTO %1$s r USING (VALUES (CAST(? AS TIMESTAMP), " +
+            "CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS BIGINT), CAST(? AS VARBINARY))) " +
+            "AS s (bucket, app_id, uri_id, hits, ip_sketch) " +
+            "ON r.bucket = s.bucket AND r.app_id = s.app_id AND r.uri_id = s.uri_id " +
+            "WHEN MATCHED THEN UPDATE SET hits = r.hits + s.hits " +
+            "WHEN NOT MATCHED THEN INSERT (bucket, app_id, uri_id, hits, ip_sketch) " +
+            "VALUES (s.bucket, s.app_id, s.uri_id, s.hits, s.ip_sketch)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final StatsRepository statsRepository;
+
+    private volatile String upsertTemplate;
+
+    public void addHits(RollupGranularity granularity, Collection<HitRollup> rollups) {
+        List<Object[]> rows = new ArrayList<>(rollups.size());
+        for (HitRollup rollup : rollups) {
+            rows.add(new Object[]{Timestamp.valueOf(rollup.getBucket()), rollup.getAppId(), rollup.getUriId(),
+                    rollup.getHits(), rollup.getIpSketch().toBytes()});
+        }
+
+        String template = upsertTemplate();
+        String sql = String.format(template, granularity.getTable());
+        if (POSTGRESQL_UPSERT.equals(template)) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            return;
+        }
+
+        // MERGE does not lock the missing key, so two first hits on a row can both take the insert branch;
+        // the loser sees the row on retry. Rows go one by one so a retry never repeats an applied row.
+        for (Object[] row : rows) {
+            try {
+                jdbcTemplate.update(sql, row);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(sql, row);
+            }
+        }
+    }
+
+    public void mergeSketch(RollupGranularity granularity, HitRollup rollup) {
+        Timestamp bucket = Timestamp.valueOf(rollup.getBucket());
+
+        List<HyperLogLog> existing = jdbcTemplate.query(String.format(
+                "SELECT ip_sketch FROM %s WHERE bucket = ? AND app_id = ? AND uri_id = ? FOR UPDATE",
+                granularity.getTable()),
+                (rs, rowNum) -> HyperLogLog.fromBytes(rs.getBytes("ip_sketch")),
+                bucket, rollup.getAppId(), rollup.getUriId());
+
+        if (existing.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.update(String.format(
+                "UPDATE %s SET ip_sketch = ? WHERE bucket = ? AND app_id = ? AND uri_id = ?",
+                granularity.getTable()),
+                existing.get(0).merge(rollup.getIpSketch()).toBytes(),
+                bucket, rollup.getAppId(), rollup.getUriId());
+    }
+
+    public List<HitRollup> findSketches(
+            RollupGranularity granularity,
+            LocalDateTime from,
+            LocalDateTime to,
+            List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder rows = new StringBuilder(String.format(
+                "SELECT bucket, app_id, uri_id, hits, ip_sketch FROM %s WHERE bucket >= :from AND bucket < :to",
+                granularity.getTable()));
+
+        if (!statsRepository.appendUriIds(rows, params, uris)) {
+            return List.of();
+        }
+
+        String sql = "SELECT r.bucket, r.app_id, r.uri_id, a.name AS app, u.uri AS uri, r.hits, r.ip_sketch " +
+                "FROM (" + rows + ") r JOIN stats_app a ON a.id = r.app_id JOIN stats_uri u ON u.id = r.uri_id";
+
+        return namedJdbcTemplate.query(sql, params, (rs, rowNum) -> HitRollup.builder()
+                .bucket(rs.getTimestamp("bucket").toLocalDateTime())
+                .appId(rs.getInt("app_id"))
+                .uriId(rs.getInt("uri_id"))
+                .app(rs.getString("app"))
+                .uri(rs.getString("uri"))
+                .hits(rs.getLong("hits"))
+                .ipSketch(HyperLogLog.fromBytes(rs.getBytes("ip_sketch")))
+                .build());
+    }
+
+    private String upsertTemplate() {
+        String template = upsertTemplate;
+        if (template == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            template = POSTGRESQL.equals(product) ? POSTGRESQL_UPSERT : MERGE_UPSERT;
+            upsertTemplate = template;
+        }
+        return template;
+    }
+
+    public int deleteBefore(RollupGranularity granularity, LocalDateTime bucket) {
+        return jdbcTemplate.update(String.format("DELETE FROM %s WHERE bucket < ?", granularity.getTable()),
+                Timestamp.valueOf(bucket));
+    }
+
+    public Optional<RollupBackfill> findBackfill(boolean forUpdate) {
+        return jdbcTemplate.query(
+                "SELECT last_id, target_id FROM hit_rollup_backfill WHERE id = 1" + (forUpdate ? " FOR UPDATE" : ""),
+                (rs, rowNum) -> new RollupBackfill(rs.getLong("last_id"), rs.getLong("target_id")))
+                .stream()
+                .findFirst();
+    }
+
+    public boolean startBackfill(long targetId) {
+        try {
+            jdbcTemplate.update("INSERT INTO hit_rollup_backfill (id, last_id, target_id) VALUES (1, 0, ?)", targetId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public void updateBackfill(long lastId) {
+        jdbcTemplate.update("UPDATE hit_rollup_backfill SET last_id = ? WHERE id = 1", lastId);
+    }
+
+    public boolean isEmpty(RollupGranularity granularity) {
+        return jdbcTemplate.queryForList(
+                String.format("SELECT 1 FROM %s LIMIT 1", granularity.getTable()), Integer.class).isEmpty();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class StatsDimensionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final Dimension apps = new Dimension("stats_app", "name");
+
+    private final Dimension uris = new Dimension("stats_uri", "uri");
+
+    public Map<String, Integer> internApps(Collection<String> names) {
+        return intern(apps, names);
+    }
+
+    public Map<String, Integer> internUris(Collection<String> names) {
+        return intern(uris, names);
+    }
+
+    public List<Integer> findUriIds(Collection<String> names) {
+        List<Integer> ids = new ArrayList<>(names.size());
+        List<String> missing = new ArrayList<>();
+
+        for (String name : names) {
+            Integer id = uris.ids.get(name);
+            if (id != null) {
+                ids.add(id);
+            } else {
+                missing.add(name);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            namedJdbcTemplate.query(
+                    String.format("SELECT id, %s FROM %s WHERE %s IN (:names)", uris.column, uris.table, uris.column),
+                    new MapSqlParameterSource("names", missing),
+                    rs -> {
+                        uris.ids.put(rs.getString(2), rs.getInt(1));
+                        ids.add(rs.getInt(1));
+                    });
+        }
+
+        return ids;
+    }
+
+    private Map<String, Integer> intern(Dimension dimension, Collection<String> names) {
+        Map<String, Integer> resolved = new HashMap<>();
+
+        for (String name : names) {
+            if (resolved.containsKey(name)) {
+                continue;
+            }
+
+            Integer id = dimension.ids.get(name);
+            if (id == null) {
+                jdbcTemplate.update(String.format("INSERT INTO %s (%s) VALUES (?) ON CONFLICT DO NOTHING",
+                        dimension.table, dimension.column), name);
+                id = jdbcTemplate.queryForObject(String.format("SELECT id FROM %s WHERE %s = ?",
+                        dimension.table, dimension.column), Integer.class, name);
+                remember(dimension, name, id);
+            }
+            resolved.put(name, id);
+        }
+
+        return resolved;
+    }
+
+    private void remember(Dimension dimension, String name, Integer id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dimension.ids.put(name, id);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dimension.ids.put(name, id);
+            }
+        });
+    }
+
+    private static class Dimension {
+
+        private final String table;
+
+        private final String column;
+
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        Dimension(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Session advisory lock held for the lifetime of the server on one connection taken out of the pool. Servers
+ * that keep a recent hit index take it exclusively and the others take it shared, so an index never runs
+ * next to another server writing hits it would not see. On databases other than PostgreSQL the lock is
+ * always granted.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class StatsInstanceLockRepository implements DisposableBean {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final long LOCK_KEY = 0x45574d5f53544154L;
+
+    private final DataSource dataSource;
+
+    private Connection connection;
+
+    public synchronized boolean tryLock(boolean exclusive) {
+        if (connection != null) {
+            throw new IllegalStateException("Stats instance lock is already held");
+        }
+
+        try {
+            Connection candidate = dataSource.getConnection();
+            if (!POSTGRESQL.equals(candidate.getMetaData().getDatabaseProductName())) {
+                candidate.close();
+                return true;
+            }
+
+            String sql = exclusive ? "SELECT pg_try_advisory_lock(?)" : "SELECT pg_try_advisory_lock_shared(?)";
+            try (PreparedStatement statement = candidate.prepareStatement(sql)) {
+                statement.setLong(1, LOCK_KEY);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next() || !resultSet.getBoolean(1)) {
+                        candidate.close();
+                        return false;
+                    }
+                }
+            }
+
+            connection = candidate;
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to take the stats instance lock", e);
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (connection == null) {
+            return;
+        }
+
+        try (Connection held = connection;
+             PreparedStatement statement = held.prepareStatement("SELECT pg_advisory_unlock_all()")) {
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("Failed to release the stats instance lock: {}", e.getMessage());
+        } finally {
+            connection = null;
+        }
+    }
+}
@@ -1,53 +1,162 @@
 package ru.practicum.stats.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
-import ru.practicum.stats.model.EndpointHit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
 import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.mapper.IpMapper;
+import ru.practicum.stats.model.EndpointHit;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class StatsRepository {
+
+    private static final String INSERT_PREFIX = "INSERT INTO endpoint_hit (app_id, uri_id, user_ip, created) VALUES ";
+
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?)";
+
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final RowMapper<ViewStats> VIEW_STATS_MAPPER = (rs, rowNum) ->
+            new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"));
+
+    static final RowMapper<EndpointHit> HIT_MAPPER = (rs, rowNum) -> EndpointHit.builder()
+            .id(rs.getLong("id"))
+            .app(rs.getString("app"))
+            .uri(rs.getString("uri"))
+            .ip(IpMapper.fromBytes(rs.getBytes("user_ip")))
+            .timestamp(rs.getTimestamp("created").toLocalDateTime())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final StatsDimensionRepository dimensionRepository;
+
+    public int insertAll(List<EndpointHit> hits) {
+        int inserted = 0;
+
+        for (int from = 0; from < hits.size(); from += ROWS_PER_STATEMENT) {
+            List<EndpointHit> chunk = hits.subList(from, Math.min(from + ROWS_PER_STATEMENT, hits.size()));
+            inserted += jdbcTemplate.update(buildInsert(chunk.size()), toArgs(chunk));
+        }
+
+        return inserted;
+    }
+
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        StringBuilder sql = new StringBuilder(unique
+                ? "SELECT app_id, uri_id, COUNT(DISTINCT user_ip) AS hits FROM endpoint_hit"
+                : "SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hit");
+
+        sql.append(" WHERE created BETWEEN :start AND :end");
+        if (!appendUriIds(sql, params, uris)) {
+            return List.of();
+        }
+        sql.append(" GROUP BY app_id, uri_id");
+
+        return namedJdbcTemplate.query(withNames(sql) + " ORDER BY h.hits DESC, app, uri", params, VIEW_STATS_MAPPER);
+    }
+
+    public List<EndpointHit> findVisitorsInRange(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder sql = new StringBuilder(
+                "SELECT DISTINCT app_id, uri_id, user_ip FROM endpoint_hit WHERE created >= :from AND created < :to");
+
+        if (!appendUriIds(sql, params, uris)) {
+            return List.of();
+        }
+
+        return namedJdbcTemplate.query(
+                "SELECT a.name AS app, u.uri AS uri, h.user_ip FROM (" + sql + ") h " +
+                        "JOIN stats_app a ON a.id = h.app_id JOIN stats_uri u ON u.id = h.uri_id",
+                params,
+                (rs, rowNum) -> EndpointHit.builder()
+                        .app(rs.getString("app"))
+                        .uri(rs.getString("uri"))
+                        .ip(IpMapper.fromBytes(rs.getBytes("user_ip")))
+                        .build());
+    }
+
+    public List<EndpointHit> findInIdRange(long afterId, long toId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT h.id, a.name AS app, u.uri AS uri, h.user_ip, h.created FROM endpoint_hit h " +
+                        "JOIN stats_app a ON a.id = h.app_id JOIN stats_uri u ON u.id = h.uri_id " +
+                        "WHERE h.id > ? AND h.id <= ? ORDER BY h.id LIMIT ?",
+                HIT_MAPPER, afterId, toId, limit);
+    }
+
+    public long findMaxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM endpoint_hit", Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    boolean appendUriIds(StringBuilder sql, MapSqlParameterSource params, List<String> uris) {
+        if (uris == null || uris.isEmpty()) {
+            return true;
+        }
+
+        List<Integer> uriIds = dimensionRepository.findUriIds(uris);
+        if (uriIds.isEmpty()) {
+            return false;
+        }
+        sql.append(" AND uri_id IN (:uriIds)");
+        params.addValue("uriIds", uriIds);
+
+        return true;
+    }
+
+    static String withNames(CharSequence grouped) {
+        return "SELECT a.name AS app, u.uri AS uri, h.hits FROM (" + grouped + ") h " +
+                "JOIN stats_app a ON a.id = h.app_id JOIN stats_uri u ON u.id = h.uri_id";
+    }
+
+    private String buildInsert(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW_PLACEHOLDER.length() + 2));
+        sql.append(INSERT_PREFIX);
+
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDER);
+        }
+
+        return sql.toString();
+    }
+
+    private Object[] toArgs(List<EndpointHit> hits) {
+        Map<String, Integer> appIds = dimensionRepository.internApps(
+                hits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = dimensionRepository.internUris(
+                hits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+        Object[] args = new Object[hits.size() * 4];
+        int i = 0;
+
+        for (EndpointHit hit : hits) {
+            args[i++] = appIds.get(hit.getApp());
+            args[i++] = uriIds.get(hit.getUri());
+            args[i++] = IpMapper.toBytes(hit.getIp());
+            args[i++] = Timestamp.valueOf(hit.getTimestamp());
+        }
 
-public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
-
-    @Query("SELECT new ru.practicum.common.model.ViewStats(st.app, st.uri, COUNT(DISTINCT st.ip)) " +
-            "FROM EndpointHit as st " +
-            "WHERE st.timestamp BETWEEN :start AND :end " +
-            "GROUP BY st.app, st.uri " +
-            "ORDER BY COUNT(DISTINCT st.ip) DESC")
-    List<ViewStats> getAllStatsByDistinctIp(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
-
-    @Query("SELECT new ru.practicum.common.model.ViewStats(st.app, st.uri, COUNT(st.ip)) " +
-            "FROM EndpointHit as st " +
-            "WHERE st.timestamp BETWEEN :start AND :end " +
-            "GROUP BY st.app, st.uri " +
-            "ORDER BY COUNT(st.ip) DESC")
-    List<ViewStats> getAllStats(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
-
-    @Query("SELECT new ru.practicum.common.model.ViewStats(st.app, st.uri, COUNT(DISTINCT st.ip)) " +
-            "FROM EndpointHit as st " +
-            "WHERE st.uri IN (:uri) " +
-            "AND st.timestamp BETWEEN :start AND :end " +
-            "GROUP BY st.app, st.uri " +
-            "ORDER BY COUNT(DISTINCT st.ip) DESC")
-    List<ViewStats> getStatsByUrisDistinctIps(
-            @Param("uri") List<String> uri,
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
-
-    @Query("SELECT NEW ru.practicum.common.model.ViewStats(st.app, st.uri, COUNT(st.ip)) " +
-            "FROM EndpointHit as st " +
-            "WHERE st.uri IN(:uri) " +
-            "AND st.timestamp BETWEEN :start AND :end " +
-            "GROUP BY st.app, st.uri " +
-            "ORDER BY COUNT(st.ip) DESC")
-    List<ViewStats> getStatsByUris(
-            @Param("uri") List<String> uri,
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end);
+        return args;
+    }
 }
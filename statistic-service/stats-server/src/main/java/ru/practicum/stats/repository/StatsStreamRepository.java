@@ -0,0 +1,137 @@
+package ru.practicum.stats.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.WindowPart;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Repository
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class StatsStreamRepository {
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private final StatsRepository statsRepository;
+
+    public StatsStreamRepository(
+            DataSource dataSource,
+            StatsRepository statsRepository,
+            @Value("${stats.stream.fetch-size:1000}") int fetchSize) {
+        this.statsRepository = statsRepository;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public void streamRaw(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        StringBuilder grouped = new StringBuilder(unique
+                ? "SELECT app_id, uri_id, COUNT(DISTINCT user_ip) AS hits FROM endpoint_hit"
+                : "SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hit");
+
+        grouped.append(" WHERE created BETWEEN :start AND :end");
+        if (!statsRepository.appendUriIds(grouped, params, uris)) {
+            return;
+        }
+        grouped.append(" GROUP BY app_id, uri_id");
+
+        stream(orderAndCut(grouped, params, top, limit), params, consumer);
+    }
+
+    public void streamSummed(
+            List<WindowPart> parts,
+            List<String> uris,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder grouped = new StringBuilder("SELECT app_id, uri_id, SUM(hits) AS hits FROM (");
+
+        for (int i = 0; i < parts.size(); i++) {
+            WindowPart part = parts.get(i);
+            if (i > 0) {
+                grouped.append(" UNION ALL ");
+            }
+
+            if (part.getGranularity() == null) {
+                grouped.append("SELECT app_id, uri_id, COUNT(*) AS hits FROM endpoint_hit")
+                        .append(" WHERE created >= :from").append(i).append(" AND created < :to").append(i);
+            } else {
+                grouped.append("SELECT app_id, uri_id, hits FROM ").append(part.getGranularity().getTable())
+                        .append(" WHERE bucket >= :from").append(i).append(" AND bucket < :to").append(i);
+            }
+            if (!statsRepository.appendUriIds(grouped, params, uris)) {
+                return;
+            }
+            if (part.getGranularity() == null) {
+                grouped.append(" GROUP BY app_id, uri_id");
+            }
+            params.addValue("from" + i, Timestamp.valueOf(part.getFrom()));
+            params.addValue("to" + i, Timestamp.valueOf(part.getTo()));
+        }
+
+        grouped.append(") parts GROUP BY app_id, uri_id");
+
+        stream(orderAndCut(grouped, params, top, limit), params, consumer);
+    }
+
+    public void streamHits(LocalDateTime from, Consumer<EndpointHit> consumer) {
+        namedJdbcTemplate.query(
+                "SELECT h.id, a.name AS app, u.uri AS uri, h.user_ip, h.created FROM endpoint_hit h " +
+                        "JOIN stats_app a ON a.id = h.app_id JOIN stats_uri u ON u.id = h.uri_id " +
+                        "WHERE h.created >= :from",
+                new MapSqlParameterSource("from", Timestamp.valueOf(from)),
+                (RowCallbackHandler) rs -> consumer.accept(StatsRepository.HIT_MAPPER.mapRow(rs, 0)));
+    }
+
+    /**
+     * Names the grouped counts and sorts them in {@link ViewStats#ORDER}, keeping the rows ranked within the
+     * {@code top} highest counts and at most {@code limit} rows, as the JSON responses do.
+     */
+    private static String orderAndCut(CharSequence grouped, MapSqlParameterSource params, Integer top, Integer limit) {
+        StringBuilder sql = new StringBuilder();
+
+        if (top == null) {
+            sql.append(StatsRepository.withNames(grouped));
+        } else {
+            sql.append("SELECT app, uri, hits FROM (SELECT n.app, n.uri, n.hits, ")
+                    .append("RANK() OVER (ORDER BY n.hits DESC) AS hit_rank FROM (")
+                    .append(StatsRepository.withNames(grouped))
+                    .append(") n) ranked WHERE hit_rank <= :top");
+            params.addValue("top", top);
+        }
+        sql.append(" ORDER BY hits DESC, app, uri");
+        if (limit != null) {
+            sql.append(" LIMIT :limit");
+            params.addValue("limit", limit);
+        }
+
+        return sql.toString();
+    }
+
+    private void stream(String sql, MapSqlParameterSource params, Consumer<ViewStats> consumer) {
+        namedJdbcTemplate.query(sql, params, (RowCallbackHandler) rs ->
+                consumer.accept(new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"))));
+    }
+}
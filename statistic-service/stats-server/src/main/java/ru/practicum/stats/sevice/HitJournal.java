@@ -0,0 +1,208 @@
+package ru.practicum.stats.sevice;
+
+import ru.practicum.stats.model.EndpointHit;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Append-only log of hits that were acknowledged but may not be committed yet. Appends are ordered with the
+ * ring buffer sequences, so a segment can be dropped as soon as the writer has committed its last sequence.
+ * A hit is acknowledged only after {@link #sync(long)} has forced its record to disk, and segments are
+ * forced before they are closed.
+ */
+final class HitJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "hits-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+
+    private final long segmentBytes;
+
+    private final Deque<Segment> closedSegments = new ArrayDeque<>();
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    private final Object syncLock = new Object();
+
+    private long appended;
+
+    private long synced;
+
+    private long nextIndex;
+
+    private Segment current;
+
+    HitJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+
+        List<Path> existing = findSegments();
+        nextIndex = existing.isEmpty() ? 0 : index(existing.get(existing.size() - 1)) + 1;
+    }
+
+    List<Path> findSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        segments.sort(null);
+
+        return segments;
+    }
+
+    List<EndpointHit> read(Path segment) throws IOException {
+        List<EndpointHit> hits = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            while (true) {
+                hits.add(EndpointHit.builder()
+                        .app(in.readUTF())
+                        .uri(in.readUTF())
+                        .ip(in.readUTF())
+                        .timestamp(LocalDateTime.parse(in.readUTF()))
+                        .build());
+            }
+        } catch (EOFException e) {
+            return hits;
+        }
+    }
+
+    synchronized void open() throws IOException {
+        current = newSegment();
+    }
+
+    /**
+     * Writes the hit and queues it on the ring. Returns the position to pass to {@link #sync(long)}, or -1
+     * when the ring is full and nothing was written.
+     */
+    synchronized long append(HitRingBuffer ring, EndpointHit hit) throws IOException {
+        if (ring.isFull()) {
+            return -1;
+        }
+
+        record.reset();
+        recordOut.writeUTF(hit.getApp());
+        recordOut.writeUTF(hit.getUri());
+        recordOut.writeUTF(hit.getIp());
+        recordOut.writeUTF(hit.getTimestamp().toString());
+
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+        while (buffer.hasRemaining()) {
+            current.bytes += current.channel.write(buffer);
+        }
+        current.lastSequence = ring.offer(hit);
+
+        return ++appended;
+    }
+
+    /**
+     * Forces the journal to disk up to the given position. Concurrent callers share one force: the first one
+     * forces everything appended so far and the others find their position already covered.
+     */
+    void sync(long position) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+
+            FileChannel channel;
+            long target;
+            synchronized (this) {
+                channel = current.channel;
+                target = appended;
+            }
+
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // The segment was rotated or closed in the meantime, which forces it first.
+            }
+            synced = target;
+        }
+    }
+
+    synchronized void release(long consumed) throws IOException {
+        while (!closedSegments.isEmpty() && closedSegments.peekFirst().lastSequence < consumed) {
+            Files.deleteIfExists(closedSegments.pollFirst().path);
+        }
+
+        if (current.lastSequence < consumed) {
+            if (current.bytes > 0) {
+                current.channel.truncate(0);
+                current.bytes = 0;
+            }
+        } else if (current.bytes >= segmentBytes) {
+            current.channel.force(false);
+            current.channel.close();
+            closedSegments.addLast(current);
+            current = newSegment();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current == null) {
+            return;
+        }
+
+        current.channel.force(false);
+        current.channel.close();
+        if (current.bytes == 0) {
+            Files.deleteIfExists(current.path);
+        }
+        current = null;
+    }
+
+    private Segment newSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextIndex++, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        return new Segment(path, channel);
+    }
+
+    private long index(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static class Segment {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private long bytes;
+
+        private long lastSequence = -1;
+
+        Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
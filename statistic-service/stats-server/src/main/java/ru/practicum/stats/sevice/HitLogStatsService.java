@@ -0,0 +1,145 @@
+package ru.practicum.stats.sevice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.HitBatchResult;
+import ru.practicum.common.model.StatsQuery;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.mapper.EndpointMapper;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.HitLogRepository;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.storage", havingValue = "hit-log")
+public class HitLogStatsService implements StatsService {
+
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
+    private final HitLogRepository hitLogRepository;
+
+    private final Validator validator;
+
+    private final int retentionMonths;
+
+    public HitLogStatsService(
+            HitLogRepository hitLogRepository,
+            Validator validator,
+            @Value("${stats.retention.months:0}") int retentionMonths) {
+        this.hitLogRepository = hitLogRepository;
+        this.validator = validator;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.hit-log.maintenance-interval:PT1M}")
+    public void maintainSegments() {
+        hitLogRepository.sealBefore(LocalDateTime.now());
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        int deleted = hitLogRepository.deleteBefore(oldestKept.atDay(1).atStartOfDay());
+        if (deleted > 0) {
+            log.info("Deleted {} hit log segments before {} (retention {} months).", deleted, oldestKept, retentionMonths);
+        }
+    }
+
+    @Override
+    public EndpointHitDto addHit(EndpointHitDto endpointHitDto) {
+        EndpointHit endpointHit = EndpointMapper.mapToEndpointHit(endpointHitDto);
+        hitLogRepository.append(List.of(endpointHit));
+
+        return EndpointMapper.mapToEndpointHitDto(endpointHit);
+    }
+
+    @Override
+    public HitBatchResult addHits(Iterator<EndpointHitDto> endpointHitDtos) {
+        List<EndpointHit> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        long accepted = 0;
+
+        while (endpointHitDtos.hasNext()) {
+            EndpointHitDto endpointHitDto = endpointHitDtos.next();
+            Set<ConstraintViolation<EndpointHitDto>> violations = validator.validate(endpointHitDto);
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
+            }
+
+            chunk.add(EndpointMapper.mapToEndpointHit(endpointHitDto));
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                hitLogRepository.append(chunk);
+                accepted += chunk.size();
+                chunk.clear();
+            }
+        }
+
+        hitLogRepository.append(chunk);
+        accepted += chunk.size();
+
+        return new HitBatchResult(accepted);
+    }
+
+    @Override
+    public List<ViewStats> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate,
+            Integer top,
+            Integer limit) {
+        StatsRequests.check(start, end, top, limit);
+
+        return StatsRequests.truncate(hitLogRepository.getStats(start, end, uris, unique, approximate), top, limit);
+    }
+
+    @Override
+    public void streamStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer) {
+        getStats(start, end, uris, unique, false, top, limit).forEach(consumer);
+    }
+
+    @Override
+    public Map<Long, Long> getHitsById(StatsQuery query) {
+        List<String> uris = StatsRequests.toUris(query);
+        Map<Long, Long> hits = new HashMap<>();
+
+        if (uris != null && uris.isEmpty()) {
+            return hits;
+        }
+
+        List<ViewStats> stats = hitLogRepository.getStats(
+                query.getStart(),
+                query.getEnd(),
+                uris,
+                query.isUnique(),
+                query.isApproximate());
+        StatsRequests.collectHitsById(stats, query.getUriPrefix(), hits);
+
+        return hits;
+    }
+}
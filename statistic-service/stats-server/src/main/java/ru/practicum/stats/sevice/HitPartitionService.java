@@ -0,0 +1,148 @@
+package ru.practicum.stats.sevice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.repository.HitPartitionRepository;
+import ru.practicum.stats.repository.HitRollupRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class HitPartitionService implements SmartInitializingSingleton {
+
+    private static final String PARTITION_PREFIX = "endpoint_hit_p";
+
+    private static final String DEFAULT_PARTITION = "endpoint_hit_default";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuuMM");
+
+    private final HitPartitionRepository hitPartitionRepository;
+
+    private final HitRollupRepository hitRollupRepository;
+
+    private final StatsResultCache statsResultCache;
+
+    private final boolean enabled;
+
+    private final int premakeMonths;
+
+    private final int retentionMonths;
+
+    private volatile Boolean partitioned;
+
+    public HitPartitionService(
+            HitPartitionRepository hitPartitionRepository,
+            HitRollupRepository hitRollupRepository,
+            StatsResultCache statsResultCache,
+            @Value("${stats.partitioning.enabled:true}") boolean enabled,
+            @Value("${stats.partitioning.premake-months:2}") int premakeMonths,
+            @Value("${stats.retention.months:0}") int retentionMonths) {
+        this.hitPartitionRepository = hitPartitionRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.statsResultCache = statsResultCache;
+        this.enabled = enabled;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${stats.partitioning.cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        if (partitioned == null) {
+            partitioned = hitPartitionRepository.isPartitioned();
+            if (!partitioned) {
+                log.info("endpoint_hit is not partitioned in this database, partition maintenance is disabled.");
+            }
+        }
+        if (!partitioned) {
+            return;
+        }
+
+        YearMonth current = YearMonth.from(LocalDate.now());
+        Set<String> existing = new HashSet<>(hitPartitionRepository.findPartitionNames());
+
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                hitPartitionRepository.createPartition(name, DEFAULT_PARTITION,
+                        month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+                log.info("Created endpoint_hit partition {}.", name);
+            } catch (DataAccessException e) {
+                log.warn("Failed to create endpoint_hit partition {}: {}", name, e.getMessage());
+            }
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        LocalDateTime cutoff = oldestKept.atDay(1).atStartOfDay();
+
+        // Rollups go first: /stats sums whole buckets from them and the window edges from raw rows, so a
+        // rollup left behind its raw rows would keep counting hits that retention already removed.
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            int deleted = hitRollupRepository.deleteBefore(granularity, cutoff);
+            if (deleted > 0) {
+                log.info("Deleted {} {} rows before {} (retention {} months).",
+                        deleted, granularity.getTable(), cutoff, retentionMonths);
+            }
+        }
+
+        for (String name : new TreeSet<>(existing)) {
+            YearMonth month = parseMonth(name);
+            if (month != null && month.isBefore(oldestKept)) {
+                hitPartitionRepository.dropPartition(name);
+                log.info("Dropped endpoint_hit partition {} (retention {} months).", name, retentionMonths);
+            }
+        }
+
+        int deleted = hitPartitionRepository.deleteBefore(DEFAULT_PARTITION, cutoff);
+        if (deleted > 0) {
+            log.info("Deleted {} rows before {} from {} (retention {} months).",
+                    deleted, cutoff, DEFAULT_PARTITION, retentionMonths);
+        }
+        statsResultCache.invalidateAll();
+    }
+
+    private String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private YearMonth parseMonth(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
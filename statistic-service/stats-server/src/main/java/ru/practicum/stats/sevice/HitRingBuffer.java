@@ -0,0 +1,76 @@
+package ru.practicum.stats.sevice;
+
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue of hits. {@link #offer} returns the sequence the hit was
+ * published under or -1 when the buffer is full; {@link #drainTo} must only be called by the consumer thread.
+ */
+final class HitRingBuffer {
+
+    private final AtomicReferenceArray<EndpointHit> slots;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong head = new AtomicLong();
+
+    HitRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    long offer(EndpointHit hit) {
+        long sequence;
+
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() >= slots.length()) {
+                return -1;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        slots.lazySet((int) sequence & mask, hit);
+        return sequence;
+    }
+
+    int drainTo(List<EndpointHit> sink, int max) {
+        long sequence = head.get();
+        int drained = 0;
+
+        while (drained < max) {
+            int index = (int) sequence & mask;
+            EndpointHit hit = slots.get(index);
+            if (hit == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            sink.add(hit);
+            sequence++;
+            drained++;
+        }
+
+        head.lazySet(sequence);
+        return drained;
+    }
+
+    boolean isFull() {
+        return tail.get() - head.get() >= slots.length();
+    }
+
+    long consumed() {
+        return head.get();
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -0,0 +1,346 @@
+package ru.practicum.stats.sevice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitRollup;
+import ru.practicum.stats.model.RollupBackfill;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.model.WindowPart;
+import ru.practicum.stats.repository.HitRollupRepository;
+import ru.practicum.stats.repository.StatsDimensionRepository;
+import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.repository.StatsStreamRepository;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class HitRollupService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final int BACKFILL_PAGE_SIZE = 10_000;
+
+    private static final Comparator<HitRollup> LOCK_ORDER = Comparator
+            .comparing(HitRollup::getBucket)
+            .thenComparingInt(HitRollup::getAppId)
+            .thenComparingInt(HitRollup::getUriId);
+
+    private final HitRollupRepository hitRollupRepository;
+
+    private final StatsRepository statsRepository;
+
+    private final StatsDimensionRepository statsDimensionRepository;
+
+    private final StatsStreamRepository statsStreamRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskScheduler taskScheduler;
+
+    private final boolean enabled;
+
+    private final Duration sketchFlushInterval;
+
+    private final Map<RollupGranularity, Map<HitRollup, HyperLogLog>> pendingSketches =
+            new EnumMap<>(RollupGranularity.class);
+
+    private volatile boolean ready;
+
+    private volatile boolean stopping;
+
+    private Thread backfillThread;
+
+    public HitRollupService(
+            HitRollupRepository hitRollupRepository,
+            StatsRepository statsRepository,
+            StatsDimensionRepository statsDimensionRepository,
+            StatsStreamRepository statsStreamRepository,
+            TransactionTemplate transactionTemplate,
+            TaskScheduler taskScheduler,
+            @Value("${stats.rollup.enabled:true}") boolean enabled,
+            @Value("${stats.rollup.sketch-flush-interval:1s}") Duration sketchFlushInterval) {
+        this.hitRollupRepository = hitRollupRepository;
+        this.statsRepository = statsRepository;
+        this.statsDimensionRepository = statsDimensionRepository;
+        this.statsStreamRepository = statsStreamRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.sketchFlushInterval = sketchFlushInterval;
+    }
+
+    /**
+     * Whether /stats can be answered from the rollups. Until the backfill has covered every hit written before
+     * the rollups were introduced, they undercount and reads go to the raw rows instead.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<EndpointHit> hits) {
+        if (!enabled || hits.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> appIds = statsDimensionRepository.internApps(
+                hits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = statsDimensionRepository.internUris(
+                hits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<HitRollup, HitRollup> rollups = new TreeMap<>(LOCK_ORDER);
+
+            for (EndpointHit hit : hits) {
+                HitRollup key = HitRollup.builder()
+                        .bucket(granularity.floor(hit.getTimestamp()))
+                        .appId(appIds.get(hit.getApp()))
+                        .uriId(uriIds.get(hit.getUri()))
+                        .build();
+                HitRollup rollup = rollups.computeIfAbsent(key, k -> {
+                    k.setIpSketch(new HyperLogLog());
+                    return k;
+                });
+                rollup.setHits(rollup.getHits() + 1);
+                rollup.getIpSketch().add(hit.getIp());
+            }
+
+            hitRollupRepository.addHits(granularity, rollups.values());
+            queueSketches(granularity, rollups.values());
+        }
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flushSketches() {
+        Map<RollupGranularity, Map<HitRollup, HyperLogLog>> flushing;
+        synchronized (pendingSketches) {
+            if (pendingSketches.isEmpty()) {
+                return;
+            }
+            flushing = new EnumMap<>(pendingSketches);
+            pendingSketches.clear();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> flushing.forEach((granularity, sketches) ->
+                    sketches.forEach((rollup, sketch) -> {
+                        rollup.setIpSketch(sketch);
+                        hitRollupRepository.mergeSketch(granularity, rollup);
+                    })));
+        } catch (RuntimeException e) {
+            log.warn("Failed to merge rollup sketches, retrying with the next flush: {}", e.getMessage());
+            flushing.forEach((granularity, sketches) -> addPending(granularity, sketches.entrySet()));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        if (backfillThread != null) {
+            backfillThread.join();
+        }
+        flushSketches();
+    }
+
+    /**
+     * Sums the window with the same query the NDJSON responses stream, so both come back in the same order.
+     */
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<ViewStats> stats = new ArrayList<>();
+        statsStreamRepository.streamSummed(split(start, end), uris, null, null, stats::add);
+
+        return stats;
+    }
+
+    public List<ViewStats> getApproximateUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<Map.Entry<String, String>, HyperLogLog> sketches = new HashMap<>();
+
+        for (WindowPart part : split(start, end)) {
+            if (part.getGranularity() == null) {
+                for (EndpointHit visitor : statsRepository.findVisitorsInRange(part.getFrom(), part.getTo(), uris)) {
+                    sketches.computeIfAbsent(key(visitor.getApp(), visitor.getUri()), k -> new HyperLogLog())
+                            .add(visitor.getIp());
+                }
+            } else {
+                for (HitRollup rollup : hitRollupRepository.findSketches(part.getGranularity(), part.getFrom(), part.getTo(), uris)) {
+                    sketches.merge(key(rollup.getApp(), rollup.getUri()), rollup.getIpSketch(), HyperLogLog::merge);
+                }
+            }
+        }
+
+        Map<Map.Entry<String, String>, Long> estimates = new HashMap<>();
+        sketches.forEach((key, sketch) -> estimates.put(key, sketch.estimate()));
+
+        return toSortedStats(estimates);
+    }
+
+    public void streamStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer) {
+        statsStreamRepository.streamSummed(split(start, end), uris, top, limit, consumer);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        taskScheduler.scheduleWithFixedDelay(this::flushSketches, sketchFlushInterval);
+
+        RollupBackfill backfill = hitRollupRepository.findBackfill(false).orElse(null);
+        if (backfill == null) {
+            long targetId = hitRollupRepository.isEmpty(RollupGranularity.MINUTE) ? statsRepository.findMaxId() : 0;
+            hitRollupRepository.startBackfill(targetId);
+            backfill = hitRollupRepository.findBackfill(false).orElseThrow();
+        }
+        if (backfill.isDone()) {
+            ready = true;
+            return;
+        }
+
+        log.info("Rollup backfill: resuming after endpoint_hit.id={} up to id={}, /stats reads raw rows until done.",
+                backfill.getLastId(), backfill.getTargetId());
+        backfillThread = new Thread(this::backfill, "stats-rollup-backfill");
+        backfillThread.setDaemon(true);
+        backfillThread.start();
+    }
+
+    private void backfill() {
+        long processed = 0;
+
+        try {
+            while (!stopping) {
+                Integer recorded = transactionTemplate.execute(status -> {
+                    RollupBackfill state = hitRollupRepository.findBackfill(true).orElseThrow();
+                    if (state.isDone()) {
+                        return null;
+                    }
+
+                    List<EndpointHit> hits = statsRepository.findInIdRange(
+                            state.getLastId(), state.getTargetId(), BACKFILL_PAGE_SIZE);
+                    record(hits);
+                    hitRollupRepository.updateBackfill(hits.isEmpty()
+                            ? state.getTargetId()
+                            : hits.get(hits.size() - 1).getId());
+                    return hits.size();
+                });
+                if (recorded == null) {
+                    ready = true;
+                    log.info("Rollup backfill: done after {} rows.", processed);
+                    return;
+                }
+                flushSketches();
+
+                processed += recorded;
+                log.info("Rollup backfill: processed {} rows.", processed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Rollup backfill stopped after {} rows, it resumes on the next start: {}", processed,
+                    e.getMessage(), e);
+        }
+    }
+
+    private void queueSketches(RollupGranularity granularity, Collection<HitRollup> rollups) {
+        Map<HitRollup, HyperLogLog> sketches = new TreeMap<>(LOCK_ORDER);
+        rollups.forEach(rollup -> sketches.put(rollup, rollup.getIpSketch()));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addPending(granularity, sketches.entrySet());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addPending(granularity, sketches.entrySet());
+            }
+        });
+    }
+
+    private void addPending(RollupGranularity granularity, Collection<Map.Entry<HitRollup, HyperLogLog>> sketches) {
+        synchronized (pendingSketches) {
+            Map<HitRollup, HyperLogLog> pending = pendingSketches.computeIfAbsent(granularity,
+                    g -> new TreeMap<>(LOCK_ORDER));
+            sketches.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), HyperLogLog::merge));
+        }
+    }
+
+    private List<WindowPart> split(LocalDateTime start, LocalDateTime end) {
+        List<WindowPart> parts = new ArrayList<>();
+        LocalDateTime endExclusive = end.plusSeconds(1);
+        LocalDateTime minuteStart = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime minuteEnd = RollupGranularity.MINUTE.floor(endExclusive);
+
+        if (!minuteStart.isBefore(minuteEnd)) {
+            addPart(parts, null, start, endExclusive);
+            return parts;
+        }
+
+        LocalDateTime hourStart = RollupGranularity.HOUR.ceil(minuteStart);
+        LocalDateTime hourEnd = RollupGranularity.HOUR.floor(minuteEnd);
+
+        if (hourStart.isBefore(hourEnd)) {
+            addPart(parts, RollupGranularity.HOUR, hourStart, hourEnd);
+            addPart(parts, RollupGranularity.MINUTE, minuteStart, hourStart);
+            addPart(parts, RollupGranularity.MINUTE, hourEnd, minuteEnd);
+        } else {
+            addPart(parts, RollupGranularity.MINUTE, minuteStart, minuteEnd);
+        }
+
+        addPart(parts, null, start, minuteStart);
+        addPart(parts, null, minuteEnd, endExclusive);
+
+        return parts;
+    }
+
+    private void addPart(List<WindowPart> parts, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            parts.add(new WindowPart(granularity, from, to));
+        }
+    }
+
+    private Map.Entry<String, String> key(String app, String uri) {
+        return new AbstractMap.SimpleImmutableEntry<>(app, uri);
+    }
+
+    private List<ViewStats> toSortedStats(Map<Map.Entry<String, String>, Long> hits) {
+        List<ViewStats> stats = new ArrayList<>(hits.size());
+
+        hits.forEach((key, count) -> stats.add(new ViewStats(key.getKey(), key.getValue(), count)));
+        stats.sort(ViewStats.ORDER);
+
+        return stats;
+    }
+}
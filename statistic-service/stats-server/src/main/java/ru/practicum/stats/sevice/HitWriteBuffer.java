@@ -0,0 +1,330 @@
+package ru.practicum.stats.sevice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.common.util.StatsUtil;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitWriteMode;
+import ru.practicum.stats.repository.StatsRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Commits buffered hits in groups from a single writer thread. Only failures a retry can fix, such as a lost
+ * connection or a lock timeout, are retried. A group that fails for any other reason is split in halves until
+ * the hits that can never be written are isolated; those are appended to
+ * {@code stats.write-behind.dead-letter-file} and the rest of the group is committed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class HitWriteBuffer implements SmartLifecycle {
+
+    private static final String FIELD_SEPARATOR = "\t";
+
+    private final StatsRepository statsRepository;
+
+    private final HitRollupService hitRollupService;
+
+    private final StatsResultCache statsResultCache;
+
+    private final RecentHitIndex recentHitIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final HitWriteMode mode;
+
+    private final HitRingBuffer ring;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final Path journalDirectory;
+
+    private final long journalSegmentBytes;
+
+    private final Path deadLetterFile;
+
+    private final DistributionSummary commitSize;
+
+    private final Counter commitFailures;
+
+    private final Counter deadLetters;
+
+    private HitJournal journal;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    public HitWriteBuffer(
+            StatsRepository statsRepository,
+            HitRollupService hitRollupService,
+            StatsResultCache statsResultCache,
+            RecentHitIndex recentHitIndex,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stats.write-behind.mode:sync}") HitWriteMode mode,
+            @Value("${stats.write-behind.capacity:65536}") int capacity,
+            @Value("${stats.write-behind.batch-size:1000}") int batchSize,
+            @Value("${stats.write-behind.flush-interval:50ms}") Duration flushInterval,
+            @Value("${stats.write-behind.journal.dir:stats-journal}") Path journalDirectory,
+            @Value("${stats.write-behind.journal.segment-size:64MB}") DataSize journalSegmentSize,
+            @Value("${stats.write-behind.dead-letter-file:stats-dead-letter.tsv}") Path deadLetterFile) {
+        this.statsRepository = statsRepository;
+        this.hitRollupService = hitRollupService;
+        this.statsResultCache = statsResultCache;
+        this.recentHitIndex = recentHitIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.mode = mode;
+        this.ring = mode == HitWriteMode.SYNC ? null : new HitRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.journalDirectory = journalDirectory;
+        this.journalSegmentBytes = journalSegmentSize.toBytes();
+        this.deadLetterFile = deadLetterFile;
+        this.commitSize = DistributionSummary.builder("stats.hits.commit.size")
+                .description("Hits written per group commit")
+                .register(meterRegistry);
+        this.commitFailures = Counter.builder("stats.hits.commit.failures")
+                .description("Group commits that failed and were retried or split")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("stats.hits.dead-lettered")
+                .description("Buffered hits that could not be written and went to the dead-letter file")
+                .register(meterRegistry);
+
+        Gauge.builder("stats.hits.buffered", this, buffer -> buffer.ring == null ? 0 : buffer.ring.size())
+                .description("Hits acknowledged but not yet committed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the hit for the next group commit. Returns false in sync mode, before start, after stop and
+     * when the buffer is full, in which case the caller writes the hit itself.
+     */
+    public boolean offer(EndpointHit hit) {
+        if (!running) {
+            return false;
+        }
+
+        boolean accepted;
+        if (journal == null) {
+            accepted = ring.offer(hit) >= 0;
+        } else {
+            try {
+                long position = journal.append(ring, hit);
+                accepted = position >= 0;
+                if (accepted) {
+                    journal.sync(position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append the hit to the journal", e);
+            }
+        }
+
+        if (accepted && ring.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+
+        return accepted;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (mode == HitWriteMode.SYNC || running) {
+            return;
+        }
+
+        if (mode == HitWriteMode.JOURNALED) {
+            try {
+                journal = new HitJournal(journalDirectory, journalSegmentBytes);
+                replayJournal();
+                journal.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open the hit journal in " + journalDirectory, e);
+            }
+        }
+
+        running = true;
+        writer = new Thread(this::drain, "stats-hit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Hit write-behind started in {} mode, batch size {}, flush interval {} ms.",
+                mode, batchSize, Duration.ofNanos(flushIntervalNanos).toMillis());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the hit journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drain() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+
+        while (running || ring.size() > 0) {
+            long deadline = System.nanoTime() + flushIntervalNanos;
+
+            while (batch.size() < batchSize) {
+                ring.drainTo(batch, batchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<EndpointHit> batch) {
+        if (!writeAll(batch)) {
+            return;
+        }
+
+        if (journal != null) {
+            try {
+                journal.release(ring.consumed());
+            } catch (IOException e) {
+                log.warn("Failed to release committed hits from the journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the hits in order, retrying transient failures and dead-lettering hits that cannot be written.
+     * Returns false when a transient failure outlasts the writer, leaving the unwritten hits in the journal.
+     */
+    private boolean writeAll(List<EndpointHit> hits) {
+        Deque<List<EndpointHit>> pending = new ArrayDeque<>();
+        pending.push(hits);
+
+        while (!pending.isEmpty()) {
+            List<EndpointHit> next = pending.pop();
+            try {
+                write(next);
+                commitSize.record(next.size());
+            } catch (RuntimeException e) {
+                commitFailures.increment();
+                if (!isTransient(e)) {
+                    if (next.size() == 1) {
+                        deadLetter(next.get(0), e);
+                    } else {
+                        log.warn("Failed to write {} buffered hits, splitting them: {}", next.size(), e.getMessage());
+                        pending.push(next.subList(next.size() / 2, next.size()));
+                        pending.push(next.subList(0, next.size() / 2));
+                    }
+                    continue;
+                }
+
+                pending.push(next);
+                int unwritten = pending.stream().mapToInt(List::size).sum();
+                if (!running) {
+                    log.error("Failed to write {} buffered hits with the writer stopped{}: {}", unwritten,
+                            journal == null ? ", they are lost" : ", they stay in the journal", e.getMessage());
+                    return false;
+                }
+                log.warn("Failed to write {} buffered hits, retrying: {}", unwritten, e.getMessage());
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private void deadLetter(EndpointHit hit, RuntimeException cause) {
+        deadLetters.increment();
+        log.error("Dropping hit {} {} from {} that cannot be written to {}: {}", hit.getApp(), hit.getUri(),
+                hit.getIp(), deadLetterFile, cause.getMessage());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(String.join(FIELD_SEPARATOR, hit.getApp(), hit.getUri(), hit.getIp(),
+                    hit.getTimestamp().format(StatsUtil.DATE_TIME_FORMATTER)));
+            writer.newLine();
+        } catch (IOException e) {
+            log.error("Failed to write hit to the dead-letter file {}, it is lost: {}", deadLetterFile, e.getMessage());
+        }
+    }
+
+    private void write(List<EndpointHit> hits) {
+        transactionTemplate.executeWithoutResult(status -> {
+            statsRepository.insertAll(hits);
+            hitRollupService.record(hits);
+            statsResultCache.onHits(hits);
+            recentHitIndex.onHits(hits);
+        });
+    }
+
+    private void replayJournal() throws IOException {
+        for (Path segment : journal.findSegments()) {
+            List<EndpointHit> hits = journal.read(segment);
+            for (int from = 0; from < hits.size(); from += batchSize) {
+                if (!writeAll(hits.subList(from, Math.min(from + batchSize, hits.size())))) {
+                    throw new IOException("Failed to replay journal segment " + segment.getFileName());
+                }
+            }
+            Files.delete(segment);
+            log.info("Replayed {} hits from journal segment {}.", hits.size(), segment.getFileName());
+        }
+    }
+}
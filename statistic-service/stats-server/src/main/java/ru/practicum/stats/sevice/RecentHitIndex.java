@@ -0,0 +1,564 @@
+package ru.practicum.stats.sevice;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.common.model.HitCounts;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.StatsInstanceLockRepository;
+import ru.practicum.stats.repository.StatsStreamRepository;
+import ru.practicum.stats.sketch.HyperLogLog;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar copy of the hits of the last {@code stats.recent-index.window}, kept as immutable segments of
+ * parallel primitive arrays sorted by (app and uri key, time) plus a small unsorted append buffer. Counting
+ * a key within a window is two binary searches per segment. Writes, flushes, merges and eviction are
+ * serialized on the index; readers work on a snapshot of the published state without locking.
+ *
+ * <p>The index only sees hits written through this server, so it needs to be the only stats-server on the
+ * database. On PostgreSQL that is enforced with {@link StatsInstanceLockRepository}: a server with the index
+ * enabled does not start next to any other server, and a server with it disabled does not start next to one
+ * that has it enabled.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class RecentHitIndex implements SmartInitializingSingleton {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private static final int BYTES_PER_HIT = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    private static final long TIME_BASE = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private static final Comparator<String[]> NAME_ORDER = Comparator.<String[], String>comparing(names -> names[0])
+            .thenComparing(names -> names[1]);
+
+    private final StatsStreamRepository statsStreamRepository;
+
+    private final StatsInstanceLockRepository statsInstanceLockRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final long maxHits;
+
+    private final Map<String, Integer> keyIds = new ConcurrentHashMap<>();
+
+    private final Map<Integer, String[]> keyNames = new ConcurrentHashMap<>();
+
+    private final Map<String, List<Integer>> uriKeys = new ConcurrentHashMap<>();
+
+    private volatile State state;
+
+    public RecentHitIndex(
+            StatsStreamRepository statsStreamRepository,
+            StatsInstanceLockRepository statsInstanceLockRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stats.recent-index.enabled:true}") boolean enabled,
+            @Value("${stats.recent-index.window:7d}") Duration window,
+            @Value("${stats.recent-index.max-memory:256MB}") DataSize maxMemory) {
+        this.statsStreamRepository = statsStreamRepository;
+        this.statsInstanceLockRepository = statsInstanceLockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled;
+        this.window = window;
+        this.maxHits = maxMemory.toBytes() / BYTES_PER_HIT;
+
+        Gauge.builder("stats.recent-index.hits", this, index -> index.state == null ? 0 : index.state.size())
+                .description("Hits held by the in-memory recent window index")
+                .register(meterRegistry);
+    }
+
+    public boolean covers(LocalDateTime start) {
+        State current = state;
+        return current != null && toTime(start) >= current.from;
+    }
+
+    public void onHits(Collection<EndpointHit> hits) {
+        if (state == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<EndpointHit> committed = List.copyOf(hits);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(committed);
+                }
+            });
+        } else {
+            add(hits);
+        }
+    }
+
+    public List<ViewStats> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate,
+            Integer top,
+            Integer limit) {
+        List<ViewStats> stats = new ArrayList<>();
+        streamStats(start, end, uris, unique, approximate, top, limit, stats::add);
+        return stats;
+    }
+
+    /**
+     * Emits the counts of the window in {@link ViewStats#ORDER}, cut by {@code top} and {@code limit} as
+     * {@link StatsRequests#truncate} does. Counting keeps one primitive counter per app and uri; the order is a
+     * sort of packed (count, key) longs, so only the names of keys tied on one count are held at a time and the
+     * walk stops as soon as {@code top} or {@code limit} is reached. With {@code approximate} unique visitors are
+     * counted by one HyperLogLog sketch per app and uri instead of a set of ips.
+     */
+    public void streamStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer) {
+        State current = state;
+        int from = toTime(start);
+        int to = toTime(end);
+        int[] keys = null;
+
+        if (uris != null && !uris.isEmpty()) {
+            keys = uris.stream()
+                    .distinct()
+                    .map(uriKeys::get)
+                    .filter(Objects::nonNull)
+                    .flatMap(List::stream)
+                    .mapToInt(Integer::intValue)
+                    .sorted()
+                    .toArray();
+        }
+
+        Visitors visitors = unique ? new Visitors(approximate) : null;
+        HitCounts hits = new HitCounts();
+
+        for (Segment segment : current.segments) {
+            segment.count(keys, from, to, hits, visitors);
+        }
+        current.buffer.count(keys, from, to, hits, visitors);
+
+        long[] ranked = new long[hits.size()];
+        int[] index = new int[1];
+        hits.forEach((key, count) -> {
+            long hitsOfKey = unique ? visitors.count((int) key) : count;
+            ranked[index[0]++] = hitsOfKey << Integer.SIZE | key;
+        });
+        Arrays.sort(ranked);
+
+        int emitted = 0;
+        int i = ranked.length - 1;
+        while (i >= 0 && (top == null || emitted < top) && (limit == null || emitted < limit)) {
+            long count = ranked[i] >>> Integer.SIZE;
+            List<String[]> tied = new ArrayList<>();
+            for (; i >= 0 && ranked[i] >>> Integer.SIZE == count; i--) {
+                tied.add(keyNames.get((int) ranked[i]));
+            }
+            tied.sort(NAME_ORDER);
+
+            for (String[] names : tied) {
+                if (limit != null && emitted == limit) {
+                    return;
+                }
+                consumer.accept(new ViewStats(names[0], names[1], count));
+                emitted++;
+            }
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!statsInstanceLockRepository.tryLock(enabled)) {
+            throw new IllegalStateException(enabled
+                    ? "Another stats-server uses the database; set stats.recent-index.enabled=false on every server"
+                    : "Another stats-server keeps a recent hit index; set stats.recent-index.enabled=false on it");
+        }
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime from = LocalDateTime.now().minus(window).truncatedTo(ChronoUnit.SECONDS);
+        synchronized (this) {
+            state = new State(toTime(from), List.of(), new Buffer());
+            transactionTemplate.executeWithoutResult(status -> statsStreamRepository.streamHits(from, this::add));
+        }
+        log.info("Recent hit index loaded: {} hits since {} in {} segments.",
+                state.size(), from, state.segments.size());
+    }
+
+    @Scheduled(initialDelayString = "${stats.recent-index.evict-interval:PT10M}",
+            fixedDelayString = "${stats.recent-index.evict-interval:PT10M}")
+    public synchronized void evictExpired() {
+        if (state != null) {
+            evict(toTime(LocalDateTime.now().minus(window)));
+        }
+    }
+
+    private synchronized void add(Collection<EndpointHit> hits) {
+        hits.forEach(this::add);
+    }
+
+    private synchronized void add(EndpointHit hit) {
+        State current = state;
+        int time = toTime(hit.getTimestamp());
+        if (time < current.from) {
+            return;
+        }
+
+        current.buffer.add(keyId(hit.getApp(), hit.getUri()), time, HyperLogLog.hash64(hit.getIp()));
+        if (current.buffer.size == BUFFER_SIZE) {
+            flush(current);
+        }
+    }
+
+    private void flush(State current) {
+        List<Segment> segments = new ArrayList<>(current.segments);
+        segments.add(current.buffer.toSegment());
+
+        while (segments.size() > 1
+                && segments.get(segments.size() - 1).size * 2 >= segments.get(segments.size() - 2).size) {
+            Segment newer = segments.remove(segments.size() - 1);
+            Segment older = segments.remove(segments.size() - 1);
+            segments.add(Segment.merge(older, newer));
+        }
+
+        state = new State(current.from, List.copyOf(segments), new Buffer());
+        while (state.size() > maxHits) {
+            State evicting = state;
+            int newest = evicting.segments.stream().mapToInt(Segment::maxTime).max().orElse(evicting.from);
+            evict(evicting.from + Math.max(1, (newest - evicting.from) / 4));
+        }
+    }
+
+    private void evict(int from) {
+        State current = state;
+        if (from <= current.from) {
+            return;
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        for (Segment segment : current.segments) {
+            Segment kept = segment.since(from);
+            if (kept.size > 0) {
+                segments.add(kept);
+            }
+        }
+
+        state = new State(from, List.copyOf(segments), current.buffer.since(from));
+        log.info("Recent hit index now starts at {}, {} hits kept.",
+                LocalDateTime.ofEpochSecond(TIME_BASE + from, 0, ZoneOffset.UTC), state.size());
+    }
+
+    private int keyId(String app, String uri) {
+        String name = app + '\n' + uri;
+        Integer id = keyIds.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        id = keyIds.size();
+        keyIds.put(name, id);
+        keyNames.put(id, new String[]{app, uri});
+        uriKeys.computeIfAbsent(uri, u -> new CopyOnWriteArrayList<>()).add(id);
+
+        return id;
+    }
+
+    private static int toTime(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC) - TIME_BASE;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, seconds));
+    }
+
+    private static final class State {
+
+        private final int from;
+
+        private final List<Segment> segments;
+
+        private final Buffer buffer;
+
+        private State(int from, List<Segment> segments, Buffer buffer) {
+            this.from = from;
+            this.segments = segments;
+            this.buffer = buffer;
+        }
+
+        private long size() {
+            return segments.stream().mapToLong(segment -> segment.size).sum() + buffer.size;
+        }
+    }
+
+    private static final class Segment {
+
+        private final int[] keys;
+
+        private final int[] times;
+
+        private final long[] ips;
+
+        private final int size;
+
+        private final int[] runKeys;
+
+        private final int[] runStarts;
+
+        private Segment(int[] keys, int[] times, long[] ips, int size) {
+            this.keys = keys;
+            this.times = times;
+            this.ips = ips;
+            this.size = size;
+
+            int runs = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || keys[i] != keys[i - 1]) {
+                    runs++;
+                }
+            }
+            this.runKeys = new int[runs];
+            this.runStarts = new int[runs + 1];
+            for (int i = 0, run = 0; i < size; i++) {
+                if (i == 0 || keys[i] != keys[i - 1]) {
+                    runKeys[run] = keys[i];
+                    runStarts[run++] = i;
+                }
+            }
+            runStarts[runs] = size;
+        }
+
+        private static Segment merge(Segment older, Segment newer) {
+            int size = older.size + newer.size;
+            int[] keys = new int[size];
+            int[] times = new int[size];
+            long[] ips = new long[size];
+
+            for (int i = 0, a = 0, b = 0; i < size; i++) {
+                boolean takeOlder = b == newer.size || a < older.size && (older.keys[a] < newer.keys[b]
+                        || older.keys[a] == newer.keys[b] && older.times[a] <= newer.times[b]);
+                Segment source = takeOlder ? older : newer;
+                int index = takeOlder ? a++ : b++;
+                keys[i] = source.keys[index];
+                times[i] = source.times[index];
+                ips[i] = source.ips[index];
+            }
+
+            return new Segment(keys, times, ips, size);
+        }
+
+        private Segment since(int from) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (times[i] >= from) {
+                    kept++;
+                }
+            }
+
+            int[] keptKeys = new int[kept];
+            int[] keptTimes = new int[kept];
+            long[] keptIps = new long[kept];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (times[i] >= from) {
+                    keptKeys[j] = keys[i];
+                    keptTimes[j] = times[i];
+                    keptIps[j++] = ips[i];
+                }
+            }
+
+            return new Segment(keptKeys, keptTimes, keptIps, kept);
+        }
+
+        private int maxTime() {
+            int max = Integer.MIN_VALUE;
+            for (int run = 0; run < runKeys.length; run++) {
+                max = Math.max(max, times[runStarts[run + 1] - 1]);
+            }
+            return max;
+        }
+
+        private void count(int[] filter, int from, int to, HitCounts hits, Visitors visitors) {
+            if (filter == null) {
+                for (int run = 0; run < runKeys.length; run++) {
+                    countRun(run, from, to, hits, visitors);
+                }
+                return;
+            }
+
+            for (int key : filter) {
+                int run = Arrays.binarySearch(runKeys, key);
+                if (run >= 0) {
+                    countRun(run, from, to, hits, visitors);
+                }
+            }
+        }
+
+        private void countRun(int run, int from, int to, HitCounts hits, Visitors visitors) {
+            int lower = firstAfter(runStarts[run], runStarts[run + 1], from - 1L);
+            int upper = firstAfter(lower, runStarts[run + 1], to);
+            if (lower == upper) {
+                return;
+            }
+
+            hits.add(runKeys[run], upper - lower);
+            if (visitors != null) {
+                LongConsumer ipsOfKey = visitors.of(runKeys[run]);
+                for (int i = lower; i < upper; i++) {
+                    ipsOfKey.accept(ips[i]);
+                }
+            }
+        }
+
+        private int firstAfter(int from, int to, long time) {
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                if (times[middle] <= time) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            return from;
+        }
+    }
+
+    private static final class Buffer {
+
+        private final int[] keys;
+
+        private final int[] times;
+
+        private final long[] ips;
+
+        private volatile int size;
+
+        private Buffer() {
+            this(new int[BUFFER_SIZE], new int[BUFFER_SIZE], new long[BUFFER_SIZE], 0);
+        }
+
+        private Buffer(int[] keys, int[] times, long[] ips, int size) {
+            this.keys = keys;
+            this.times = times;
+            this.ips = ips;
+            this.size = size;
+        }
+
+        private void add(int key, int time, long ip) {
+            int index = size;
+            keys[index] = key;
+            times[index] = time;
+            ips[index] = ip;
+            size = index + 1;
+        }
+
+        private Segment toSegment() {
+            int count = size;
+            int[] order = IntStream.range(0, count)
+                    .boxed()
+                    .sorted(Comparator.<Integer>comparingInt(i -> keys[i]).thenComparingInt(i -> times[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int[] sortedKeys = new int[count];
+            int[] sortedTimes = new int[count];
+            long[] sortedIps = new long[count];
+
+            for (int i = 0; i < count; i++) {
+                sortedKeys[i] = keys[order[i]];
+                sortedTimes[i] = times[order[i]];
+                sortedIps[i] = ips[order[i]];
+            }
+
+            return new Segment(sortedKeys, sortedTimes, sortedIps, count);
+        }
+
+        private Buffer since(int from) {
+            Buffer kept = new Buffer();
+            int count = size;
+            for (int i = 0; i < count; i++) {
+                if (times[i] >= from) {
+                    kept.add(keys[i], times[i], ips[i]);
+                }
+            }
+            return kept;
+        }
+
+        private void count(int[] filter, int from, int to, HitCounts hits, Visitors visitors) {
+            int count = size;
+            for (int i = 0; i < count; i++) {
+                if (times[i] < from || times[i] > to || filter != null && Arrays.binarySearch(filter, keys[i]) < 0) {
+                    continue;
+                }
+                hits.add(keys[i], 1);
+                if (visitors != null) {
+                    visitors.of(keys[i]).accept(ips[i]);
+                }
+            }
+        }
+    }
+
+    private static final class Visitors {
+
+        private final boolean approximate;
+
+        private final Map<Integer, HitCounts> ips = new HashMap<>();
+
+        private final Map<Integer, HyperLogLog> sketches = new HashMap<>();
+
+        private Visitors(boolean approximate) {
+            this.approximate = approximate;
+        }
+
+        private LongConsumer of(int key) {
+            if (approximate) {
+                return sketches.computeIfAbsent(key, k -> new HyperLogLog())::addHash;
+            }
+
+            HitCounts ipsOfKey = ips.computeIfAbsent(key, k -> new HitCounts());
+            return ip -> ipsOfKey.add(ip, 1);
+        }
+
+        private long count(int key) {
+            return approximate ? sketches.get(key).estimate() : ips.get(key).size();
+        }
+    }
+}
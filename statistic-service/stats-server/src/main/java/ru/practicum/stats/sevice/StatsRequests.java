@@ -0,0 +1,80 @@
+package ru.practicum.stats.sevice;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.common.model.StatsQuery;
+import ru.practicum.common.model.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class StatsRequests {
+
+    static void check(LocalDateTime start, LocalDateTime end, Integer top, Integer limit) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException(String
+                    .format("Invalid time interval, the start=%s cannot be later than end=%s", start, end));
+        }
+
+        if (top != null && top <= 0 || limit != null && limit <= 0) {
+            throw new IllegalArgumentException(String
+                    .format("The top=%s and limit=%s parameters must be positive", top, limit));
+        }
+    }
+
+    /**
+     * Cuts stats sorted by {@link ViewStats#ORDER}: {@code top} keeps the rows ranked within the {@code top}
+     * highest hit counts, so rows tied with the last of them are kept too, and {@code limit} caps the number of
+     * rows.
+     */
+    static List<ViewStats> truncate(List<ViewStats> stats, Integer top, Integer limit) {
+        int size = stats.size();
+
+        if (top != null && size > top) {
+            long lowest = stats.get(top - 1).getHits();
+            size = top;
+            while (size < stats.size() && stats.get(size).getHits() == lowest) {
+                size++;
+            }
+        }
+        if (limit != null) {
+            size = Math.min(size, limit);
+        }
+
+        return size < stats.size() ? stats.subList(0, size) : stats;
+    }
+
+    static List<String> toUris(StatsQuery query) {
+        String prefix = query.getUriPrefix();
+
+        return query.getIds() == null
+                ? null
+                : query.getIds().stream().distinct().map(id -> prefix + id).collect(Collectors.toList());
+    }
+
+    static void collectHitsById(List<ViewStats> stats, String prefix, Map<Long, Long> hits) {
+        for (ViewStats viewStats : stats) {
+            Long id = parseId(viewStats.getUri(), prefix);
+            if (id != null) {
+                hits.merge(id, viewStats.getHits(), Long::sum);
+            }
+        }
+    }
+
+    private static Long parseId(String uri, String prefix) {
+        if (!uri.startsWith(prefix) || uri.length() == prefix.length() || uri.length() - prefix.length() > 18) {
+            return null;
+        }
+
+        for (int i = prefix.length(); i < uri.length(); i++) {
+            if (!Character.isDigit(uri.charAt(i))) {
+                return null;
+            }
+        }
+
+        return Long.parseLong(uri.substring(prefix.length()));
+    }
+}
@@ -0,0 +1,158 @@
+package ru.practicum.stats.sevice;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches /stats results of windows that ended at least {@code stats.cache.closed-after} ago. A late hit written
+ * through this server evicts only the entries whose window and uris cover it. Late hits this server never sees,
+ * such as those written by another instance, are picked up once an entry is {@code stats.cache.ttl} old.
+ */
+@Component
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
+public class StatsResultCache {
+
+    private final Cache<Key, List<ViewStats>> cache;
+
+    private final Duration closedAfter;
+
+    private final boolean enabled;
+
+    private final Timer hitTimer;
+
+    private final Timer missTimer;
+
+    private final Timer bypassTimer;
+
+    public StatsResultCache(
+            @Value("${stats.cache.enabled:true}") boolean enabled,
+            @Value("${stats.cache.max-size:10000}") long maxSize,
+            @Value("${stats.cache.closed-after:5m}") Duration closedAfter,
+            @Value("${stats.cache.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.closedAfter = closedAfter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.hitTimer = latency(meterRegistry, "hit");
+        this.missTimer = latency(meterRegistry, "miss");
+        this.bypassTimer = latency(meterRegistry, "bypass");
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats");
+    }
+
+    public List<ViewStats> get(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate,
+            Supplier<List<ViewStats>> loader) {
+        if (!enabled || !isClosed(end)) {
+            return bypassTimer.record(loader);
+        }
+
+        Key key = new Key(start, end, uris == null ? Set.of() : Set.copyOf(uris), unique, approximate);
+        long startedAt = System.nanoTime();
+        List<ViewStats> stats = cache.getIfPresent(key);
+
+        if (stats != null) {
+            hitTimer.record(Duration.ofNanos(System.nanoTime() - startedAt));
+            return stats;
+        }
+
+        stats = List.copyOf(loader.get());
+        cache.put(key, stats);
+        missTimer.record(Duration.ofNanos(System.nanoTime() - startedAt));
+
+        return stats;
+    }
+
+    public void onHits(Collection<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+
+        List<EndpointHit> lateHits = hits.stream()
+                .filter(hit -> isClosed(hit.getTimestamp()))
+                .collect(Collectors.toList());
+        if (lateHits.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(lateHits);
+                }
+            });
+        } else {
+            invalidate(lateHits);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void invalidate(List<EndpointHit> lateHits) {
+        cache.asMap().keySet().removeIf(key -> lateHits.stream().anyMatch(key::covers));
+    }
+
+    private boolean isClosed(LocalDateTime time) {
+        return !time.isAfter(LocalDateTime.now().minus(closedAfter));
+    }
+
+    private static Timer latency(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("stats.query")
+                .description("Latency of /stats queries")
+                .tag("cache", result)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final LocalDateTime start;
+
+        private final LocalDateTime end;
+
+        private final Set<String> uris;
+
+        private final boolean unique;
+
+        private final boolean approximate;
+
+        boolean covers(EndpointHit hit) {
+            return !hit.getTimestamp().isBefore(start) && !hit.getTimestamp().isAfter(end)
+                    && (uris.isEmpty() || uris.contains(hit.getUri()));
+        }
+    }
+}
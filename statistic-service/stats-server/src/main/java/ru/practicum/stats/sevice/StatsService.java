@@ -1,14 +1,47 @@
 package ru.practicum.stats.sevice;
 
 import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.HitBatchResult;
+import ru.practicum.common.model.StatsQuery;
 import ru.practicum.common.model.ViewStats;
 
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface StatsService {
 
     EndpointHitDto addHit(EndpointHitDto endpointHitDto);
 
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+    HitBatchResult addHits(Iterator<EndpointHitDto> endpointHitDtos);
+
+    /**
+     * Returns the counts in {@link ViewStats#ORDER}. {@code top} keeps the uris ranked within the {@code top}
+     * highest counts, so more rows are returned when several tie with the last of them; {@code limit} caps the
+     * number of rows. Both can be combined.
+     */
+    List<ViewStats> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate,
+            Integer top,
+            Integer limit);
+
+    /**
+     * Streams the same rows in the same order as {@link #getStats} without approximate counts.
+     */
+    void streamStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer);
+
+    Map<Long, Long> getHitsById(StatsQuery query);
 }
@@ -1,50 +1,185 @@
 package ru.practicum.stats.sevice;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.stats.mapper.EndpointMapper;
 import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.HitBatchResult;
+import ru.practicum.common.model.StatsQuery;
 import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
 import ru.practicum.stats.repository.StatsRepository;
+import ru.practicum.stats.repository.StatsStreamRepository;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jpa", matchIfMissing = true)
 public class StatsServiceImpl implements StatsService {
 
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
     private final StatsRepository statsRepository;
 
+    private final HitRollupService hitRollupService;
+
+    private final StatsResultCache statsResultCache;
+
+    private final StatsStreamRepository statsStreamRepository;
+
+    private final HitWriteBuffer hitWriteBuffer;
+
+    private final RecentHitIndex recentHitIndex;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EndpointHitDto addHit(EndpointHitDto endpointHitDto) {
-        return EndpointMapper.mapToEndpointHitDto(statsRepository.save(EndpointMapper.mapToEndpointHit(endpointHitDto)));
+        EndpointHit endpointHit = EndpointMapper.mapToEndpointHit(endpointHitDto);
+
+        if (hitWriteBuffer.offer(endpointHit)) {
+            return EndpointMapper.mapToEndpointHitDto(endpointHit);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> insertChunk(List.of(endpointHit)));
+
+        return EndpointMapper.mapToEndpointHitDto(endpointHit);
     }
 
     @Override
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
-        if (start.isAfter(end)) {
-            throw new IllegalArgumentException(String
-                    .format("Invalid time interval, the start=%s cannot be later than end=%s", start, end));
-        }
+    @Transactional
+    public HitBatchResult addHits(Iterator<EndpointHitDto> endpointHitDtos) {
+        List<EndpointHit> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        long accepted = 0;
 
-        if (uris == null || uris.isEmpty()) {
-            if (unique) {
-                return statsRepository.getAllStatsByDistinctIp(start, end);
-            } else {
-                return statsRepository.getAllStats(start, end);
+        while (endpointHitDtos.hasNext()) {
+            EndpointHitDto endpointHitDto = endpointHitDtos.next();
+            Set<ConstraintViolation<EndpointHitDto>> violations = validator.validate(endpointHitDto);
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
             }
+
+            chunk.add(EndpointMapper.mapToEndpointHit(endpointHitDto));
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                accepted += insertChunk(chunk);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            accepted += insertChunk(chunk);
+        }
+
+        return new HitBatchResult(accepted);
+    }
+
+    @Override
+    public List<ViewStats> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate,
+            Integer top,
+            Integer limit) {
+        StatsRequests.check(start, end, top, limit);
+
+        if (recentHitIndex.covers(start)) {
+            return recentHitIndex.getStats(start, end, uris, unique, approximate, top, limit);
+        }
+
+        List<ViewStats> stats = statsResultCache.get(start, end, uris, unique, approximate,
+                () -> loadStats(start, end, uris, unique, approximate));
+
+        return StatsRequests.truncate(stats, top, limit);
+    }
+
+    @Override
+    public void streamStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            Integer top,
+            Integer limit,
+            Consumer<ViewStats> consumer) {
+        StatsRequests.check(start, end, top, limit);
+
+        if (recentHitIndex.covers(start)) {
+            recentHitIndex.streamStats(start, end, uris, unique, false, top, limit, consumer);
+        } else if (!unique && hitRollupService.isReady()) {
+            hitRollupService.streamStats(start, end, uris, top, limit, consumer);
         } else {
-            if (unique) {
-                return statsRepository.getStatsByUrisDistinctIps(uris, start, end);
-            } else {
-                return statsRepository.getStatsByUris(uris, start, end);
+            statsStreamRepository.streamRaw(start, end, uris, unique, top, limit, consumer);
+        }
+    }
+
+    @Override
+    public Map<Long, Long> getHitsById(StatsQuery query) {
+        List<String> uris = StatsRequests.toUris(query);
+        Map<Long, Long> hits = new HashMap<>();
+
+        if (uris != null && uris.isEmpty()) {
+            return hits;
+        }
+
+        List<ViewStats> stats = getStats(
+                query.getStart(),
+                query.getEnd(),
+                uris,
+                query.isUnique(),
+                query.isApproximate(),
+                null,
+                null);
+
+        StatsRequests.collectHitsById(stats, query.getUriPrefix(), hits);
+
+        return hits;
+    }
+
+    private List<ViewStats> loadStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique,
+            boolean approximate) {
+        if (hitRollupService.isReady()) {
+            if (!unique) {
+                return hitRollupService.getStats(start, end, uris);
+            }
+            if (approximate) {
+                return hitRollupService.getApproximateUniqueStats(start, end, uris);
             }
         }
+
+        return statsRepository.getStats(start, end, uris, unique);
     }
 
+    private int insertChunk(List<EndpointHit> chunk) {
+        int inserted = statsRepository.insertAll(chunk);
+        hitRollupService.record(chunk);
+        statsResultCache.onHits(chunk);
+        recentHitIndex.onHits(chunk);
+        return inserted;
+    }
 }
@@ -0,0 +1,26 @@
+  CREATE TABLE IF NOT EXISTS endpoint_hit (
+     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+     app VARCHAR(50) NOT NULL,
+     uri VARCHAR(50) NOT NULL,
+     user_ip VARCHAR(50) NOT NULL,
+     created TIMESTAMP NOT NULL
+
+  );
+
+  CREATE TABLE IF NOT EXISTS hit_rollup_minute (
+     bucket TIMESTAMP NOT NULL,
+     app VARCHAR(50) NOT NULL,
+     uri VARCHAR(50) NOT NULL,
+     hits BIGINT NOT NULL,
+     ip_sketch BYTEA NOT NULL,
+     CONSTRAINT pk_hit_rollup_minute PRIMARY KEY (bucket, app, uri)
+  );
+
+  CREATE TABLE IF NOT EXISTS hit_rollup_hour (
+     bucket TIMESTAMP NOT NULL,
+     app VARCHAR(50) NOT NULL,
+     uri VARCHAR(50) NOT NULL,
+     hits BIGINT NOT NULL,
+     ip_sketch BYTEA NOT NULL,
+     CONSTRAINT pk_hit_rollup_hour PRIMARY KEY (bucket, app, uri)
+  );
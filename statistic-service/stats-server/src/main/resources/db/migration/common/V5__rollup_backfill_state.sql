@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS hit_rollup_backfill (
+   id INTEGER PRIMARY KEY,
+   last_id BIGINT NOT NULL,
+   target_id BIGINT NOT NULL
+);
@@ -0,0 +1,49 @@
+INSERT INTO stats_app (name)
+SELECT DISTINCT r.app FROM (SELECT app FROM hit_rollup_minute UNION SELECT app FROM hit_rollup_hour) r
+WHERE NOT EXISTS (SELECT 1 FROM stats_app a WHERE a.name = r.app);
+
+INSERT INTO stats_uri (uri)
+SELECT DISTINCT r.uri FROM (SELECT uri FROM hit_rollup_minute UNION SELECT uri FROM hit_rollup_hour) r
+WHERE NOT EXISTS (SELECT 1 FROM stats_uri u WHERE u.uri = r.uri);
+
+CREATE TABLE hit_rollup_minute_keyed (
+   bucket TIMESTAMP NOT NULL,
+   app_id INTEGER NOT NULL REFERENCES stats_app (id),
+   uri_id INTEGER NOT NULL REFERENCES stats_uri (id),
+   hits BIGINT NOT NULL,
+   ip_sketch BYTEA NOT NULL,
+   CONSTRAINT pk_hit_rollup_minute_keyed PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE TABLE hit_rollup_hour_keyed (
+   bucket TIMESTAMP NOT NULL,
+   app_id INTEGER NOT NULL REFERENCES stats_app (id),
+   uri_id INTEGER NOT NULL REFERENCES stats_uri (id),
+   hits BIGINT NOT NULL,
+   ip_sketch BYTEA NOT NULL,
+   CONSTRAINT pk_hit_rollup_hour_keyed PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+INSERT INTO hit_rollup_minute_keyed (bucket, app_id, uri_id, hits, ip_sketch)
+SELECT r.bucket, a.id, u.id, r.hits, r.ip_sketch
+FROM hit_rollup_minute r
+JOIN stats_app a ON a.name = r.app
+JOIN stats_uri u ON u.uri = r.uri;
+
+INSERT INTO hit_rollup_hour_keyed (bucket, app_id, uri_id, hits, ip_sketch)
+SELECT r.bucket, a.id, u.id, r.hits, r.ip_sketch
+FROM hit_rollup_hour r
+JOIN stats_app a ON a.name = r.app
+JOIN stats_uri u ON u.uri = r.uri;
+
+DROP TABLE hit_rollup_minute;
+
+DROP TABLE hit_rollup_hour;
+
+ALTER TABLE hit_rollup_minute_keyed RENAME TO hit_rollup_minute;
+
+ALTER TABLE hit_rollup_hour_keyed RENAME TO hit_rollup_hour;
+
+ALTER TABLE hit_rollup_minute RENAME CONSTRAINT pk_hit_rollup_minute_keyed TO pk_hit_rollup_minute;
+
+ALTER TABLE hit_rollup_hour RENAME CONSTRAINT pk_hit_rollup_hour_keyed TO pk_hit_rollup_hour;
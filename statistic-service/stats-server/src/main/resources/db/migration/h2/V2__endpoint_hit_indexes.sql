@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS idx_endpoint_hit_created ON endpoint_hit (created);
+
+CREATE INDEX IF NOT EXISTS idx_endpoint_hit_uri_created ON endpoint_hit (uri, created, app, user_ip);
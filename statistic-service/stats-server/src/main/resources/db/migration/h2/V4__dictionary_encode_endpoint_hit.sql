@@ -0,0 +1,43 @@
+CREATE TABLE stats_app (
+   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+   name VARCHAR(50) NOT NULL,
+   CONSTRAINT uq_stats_app_name UNIQUE (name)
+);
+
+CREATE TABLE stats_uri (
+   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+   uri VARCHAR(50) NOT NULL,
+   CONSTRAINT uq_stats_uri_uri UNIQUE (uri)
+);
+
+INSERT INTO stats_app (name) SELECT DISTINCT app FROM endpoint_hit;
+
+INSERT INTO stats_uri (uri) SELECT DISTINCT uri FROM endpoint_hit;
+
+-- H2 only backs the in-memory ci/test profiles, so existing ips are carried over as UTF-8 text,
+-- which IpMapper reads back unchanged.
+CREATE TABLE endpoint_hit_encoded (
+   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+   app_id INTEGER NOT NULL REFERENCES stats_app (id),
+   uri_id INTEGER NOT NULL REFERENCES stats_uri (id),
+   user_ip VARBINARY(64) NOT NULL,
+   created TIMESTAMP NOT NULL
+);
+
+INSERT INTO endpoint_hit_encoded (id, app_id, uri_id, user_ip, created)
+SELECT h.id, a.id, u.id,
+       CASE WHEN OCTET_LENGTH(STRINGTOUTF8(h.user_ip)) IN (4, 16)
+            THEN STRINGTOUTF8(h.user_ip) || X'00'
+            ELSE STRINGTOUTF8(h.user_ip) END,
+       h.created
+FROM endpoint_hit h
+JOIN stats_app a ON a.name = h.app
+JOIN stats_uri u ON u.uri = h.uri;
+
+DROP TABLE endpoint_hit;
+
+ALTER TABLE endpoint_hit_encoded RENAME TO endpoint_hit;
+
+CREATE INDEX idx_endpoint_hit_created ON endpoint_hit (created);
+
+CREATE INDEX idx_endpoint_hit_uri_created ON endpoint_hit (uri_id, created, app_id, user_ip);
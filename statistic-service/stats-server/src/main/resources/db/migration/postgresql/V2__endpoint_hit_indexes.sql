@@ -0,0 +1,5 @@
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_endpoint_hit_created_brin
+    ON endpoint_hit USING BRIN (created) WITH (pages_per_range = 32);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_endpoint_hit_uri_created
+    ON endpoint_hit (uri, created) INCLUDE (app, user_ip);
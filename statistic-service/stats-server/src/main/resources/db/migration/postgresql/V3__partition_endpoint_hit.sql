@@ -0,0 +1,48 @@
+ALTER TABLE endpoint_hit RENAME TO endpoint_hit_unpartitioned;
+
+ALTER TABLE endpoint_hit_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS endpoint_hit_id_seq;
+
+SELECT setval('endpoint_hit_id_seq', COALESCE((SELECT MAX(id) FROM endpoint_hit_unpartitioned), 0) + 1, false);
+
+CREATE TABLE endpoint_hit (
+   id BIGINT NOT NULL DEFAULT nextval('endpoint_hit_id_seq'),
+   app VARCHAR(50) NOT NULL,
+   uri VARCHAR(50) NOT NULL,
+   user_ip VARCHAR(50) NOT NULL,
+   created TIMESTAMP NOT NULL,
+   CONSTRAINT pk_endpoint_hit PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+ALTER SEQUENCE endpoint_hit_id_seq OWNED BY endpoint_hit.id;
+
+CREATE TABLE endpoint_hit_default PARTITION OF endpoint_hit DEFAULT;
+
+DO $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', COALESCE(
+            (SELECT MIN(created) FROM endpoint_hit_unpartitioned), now()::timestamp));
+    last_month TIMESTAMP := date_trunc('month', now()::timestamp) + INTERVAL '2 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF endpoint_hit FOR VALUES FROM (%L) TO (%L)',
+                'endpoint_hit_p' || to_char(month_start, 'YYYYMM'),
+                month_start,
+                month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO endpoint_hit (id, app, uri, user_ip, created)
+SELECT id, app, uri, user_ip, created FROM endpoint_hit_unpartitioned;
+
+DROP TABLE endpoint_hit_unpartitioned;
+
+CREATE INDEX idx_endpoint_hit_created_brin
+    ON endpoint_hit USING BRIN (created) WITH (pages_per_range = 32);
+
+CREATE INDEX idx_endpoint_hit_uri_created
+    ON endpoint_hit (uri, created) INCLUDE (app, user_ip);
+
+ANALYZE endpoint_hit;
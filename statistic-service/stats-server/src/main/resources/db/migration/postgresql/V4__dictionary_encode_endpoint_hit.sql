@@ -0,0 +1,91 @@
+CREATE TABLE stats_app (
+   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+   name VARCHAR(50) NOT NULL,
+   CONSTRAINT uq_stats_app_name UNIQUE (name)
+);
+
+CREATE TABLE stats_uri (
+   id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+   uri VARCHAR(50) NOT NULL,
+   CONSTRAINT uq_stats_uri_uri UNIQUE (uri)
+);
+
+INSERT INTO stats_app (name) SELECT DISTINCT app FROM endpoint_hit;
+
+INSERT INTO stats_uri (uri) SELECT DISTINCT uri FROM endpoint_hit;
+
+-- Same encoding as IpMapper: 4 bytes for dotted IPv4, 16 bytes for uncompressed lowercase IPv6,
+-- UTF-8 text otherwise (padded with a zero byte when it would be 4 or 16 bytes long).
+CREATE FUNCTION pg_temp.encode_ip(ip TEXT) RETURNS BYTEA LANGUAGE SQL IMMUTABLE AS $$
+    SELECT CASE
+        WHEN ip ~ '^(0|[1-9][0-9]{0,2})(\.(0|[1-9][0-9]{0,2})){3}$'
+                AND (SELECT bool_and(g::INT <= 255) FROM unnest(string_to_array(ip, '.')) AS g)
+            THEN decode((SELECT string_agg(lpad(to_hex(g::INT), 2, '0'), '' ORDER BY n)
+                         FROM unnest(string_to_array(ip, '.')) WITH ORDINALITY AS t(g, n)), 'hex')
+        WHEN ip ~ '^(0|[1-9a-f][0-9a-f]{0,3})(:(0|[1-9a-f][0-9a-f]{0,3})){7}$'
+            THEN decode((SELECT string_agg(lpad(g, 4, '0'), '' ORDER BY n)
+                         FROM unnest(string_to_array(ip, ':')) WITH ORDINALITY AS t(g, n)), 'hex')
+        WHEN octet_length(convert_to(ip, 'UTF8')) IN (4, 16)
+            THEN convert_to(ip, 'UTF8') || '\x00'::BYTEA
+        ELSE convert_to(ip, 'UTF8')
+    END
+$$;
+
+ALTER SEQUENCE endpoint_hit_id_seq OWNED BY NONE;
+
+CREATE TABLE endpoint_hit_encoded (
+   id BIGINT NOT NULL DEFAULT nextval('endpoint_hit_id_seq'),
+   app_id INTEGER NOT NULL REFERENCES stats_app (id),
+   uri_id INTEGER NOT NULL REFERENCES stats_uri (id),
+   user_ip BYTEA NOT NULL,
+   created TIMESTAMP NOT NULL,
+   CONSTRAINT pk_endpoint_hit_encoded PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+DO $$
+DECLARE
+    part RECORD;
+BEGIN
+    FOR part IN
+        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'endpoint_hit'::regclass
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF endpoint_hit_encoded %s', part.relname || '_encoded', part.bound);
+    END LOOP;
+END $$;
+
+INSERT INTO endpoint_hit_encoded (id, app_id, uri_id, user_ip, created)
+SELECT h.id, a.id, u.id, pg_temp.encode_ip(h.user_ip), h.created
+FROM endpoint_hit h
+JOIN stats_app a ON a.name = h.app
+JOIN stats_uri u ON u.uri = h.uri;
+
+DROP TABLE endpoint_hit;
+
+ALTER TABLE endpoint_hit_encoded RENAME TO endpoint_hit;
+
+ALTER TABLE endpoint_hit RENAME CONSTRAINT pk_endpoint_hit_encoded TO pk_endpoint_hit;
+
+ALTER SEQUENCE endpoint_hit_id_seq OWNED BY endpoint_hit.id;
+
+DO $$
+DECLARE
+    part RECORD;
+BEGIN
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'endpoint_hit'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', part.relname, left(part.relname, -length('_encoded')));
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_endpoint_hit_created_brin
+    ON endpoint_hit USING BRIN (created) WITH (pages_per_range = 32);
+
+CREATE INDEX idx_endpoint_hit_uri_created
+    ON endpoint_hit (uri_id, created) INCLUDE (app_id, user_ip);
+
+ANALYZE endpoint_hit;
@@ -0,0 +1,21 @@
+package ru.practicum.stats.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+@SpringBootTest(properties = {
+        "stats.storage=hit-log",
+        "spring.datasource.url=jdbc:postgresql://unreachable.invalid/statistic_ewm"})
+@AutoConfigureMockMvc
+class HitLogStatsControllerTest extends StatsControllerTest {
+
+    @DynamicPropertySource
+    static void hitLogDirectory(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("stats.hit-log.dir", Files.createTempDirectory("stats-hit-log")::toString);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.stats.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.stats.sevice.HitRollupService;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "stats.storage=jpa")
+@AutoConfigureMockMvc
+class JpaStatsControllerTest extends StatsControllerTest {
+
+    @Autowired
+    private HitRollupService hitRollupService;
+
+    @Test
+    void getApproximateUniqueStatsReadsTheRollupSketches() throws Exception {
+        addHit("/events/701", "10.0.5.1", "2022-09-06 10:10:00");
+        addHit("/events/701", "10.0.5.1", "2022-09-06 10:20:00");
+        addHit("/events/701", "10.0.5.2", "2022-09-06 11:30:00");
+        hitRollupService.flushSketches();
+
+        mvc.perform(get("/stats")
+                        .param("start", OLD_START)
+                        .param("end", OLD_END)
+                        .param("uris", "/events/701")
+                        .param("unique", "true")
+                        .param("approximate", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/events/701"))
+                .andExpect(jsonPath("$[0].hits").value(2));
+    }
+}
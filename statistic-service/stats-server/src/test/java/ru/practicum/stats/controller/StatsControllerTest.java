@@ -0,0 +1,337 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.common.model.EndpointHitDto;
+import ru.practicum.common.model.StatsQuery;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.common.util.StatsUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Controller contract shared by the storage engines. Every test uses its own uris, because the context and
+ * its data are shared between the tests of one engine.
+ */
+abstract class StatsControllerTest {
+
+    static final String OLD_START = "2022-09-06 10:00:00";
+
+    static final String OLD_END = "2022-09-06 12:00:00";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    void addHitReturnsTheStoredHit() throws Exception {
+        mvc.perform(post("/hit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(hit("/events/101", "192.163.0.1", "2022-09-06 11:00:23")))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.app").value("ewm-main-service"))
+                .andExpect(jsonPath("$.uri").value("/events/101"))
+                .andExpect(jsonPath("$.ip").value("192.163.0.1"))
+                .andExpect(jsonPath("$.timestamp").value("2022-09-06 11:00:23"));
+    }
+
+    @Test
+    void getStatsCountsHitsAndUniqueIps() throws Exception {
+        addHit("/events/201", "10.0.0.1", "2022-09-06 11:00:23");
+        addHit("/events/201", "10.0.0.1", "2022-09-06 11:15:00");
+        addHit("/events/201", "2001:db8::1", "2022-09-06 11:30:41");
+        addHit("/events/201", "10.0.0.2", "2022-09-06 13:00:00");
+
+        mvc.perform(get("/stats")
+                        .param("start", OLD_START)
+                        .param("end", OLD_END)
+                        .param("uris", "/events/201"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].app").value("ewm-main-service"))
+                .andExpect(jsonPath("$[0].uri").value("/events/201"))
+                .andExpect(jsonPath("$[0].hits").value(3));
+
+        mvc.perform(get("/stats")
+                        .param("start", OLD_START)
+                        .param("end", OLD_END)
+                        .param("uris", "/events/201")
+                        .param("unique", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(2));
+    }
+
+    @Test
+    void getStatsSortsByHitsAndAppliesLimit() throws Exception {
+        mvc.perform(post("/hit/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",",
+                                hit("/events/301", "10.0.1.1", "2022-09-06 11:00:00"),
+                                hit("/events/302", "10.0.1.1", "2022-09-06 11:00:01"),
+                                hit("/events/302", "10.0.1.2", "2022-09-06 11:00:02"),
+                                hit("/events/303", "10.0.1.1", "2022-09-06 11:00:03"),
+                                hit("/events/303", "10.0.1.2", "2022-09-06 11:00:04"),
+                                hit("/events/303", "10.0.1.3", "2022-09-06 11:00:05")) + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(6));
+
+        mvc.perform(get("/stats")
+                        .param("start", OLD_START)
+                        .param("end", OLD_END)
+                        .param("uris", "/events/301", "/events/302", "/events/303"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].uri").value("/events/303"))
+                .andExpect(jsonPath("$[0].hits").value(3))
+                .andExpect(jsonPath("$[1].uri").value("/events/302"))
+                .andExpect(jsonPath("$[2].uri").value("/events/301"));
+
+        mvc.perform(get("/stats")
+                        .param("start", OLD_START)
+                        .param("end", OLD_END)
+                        .param("uris", "/events/301", "/events/302", "/events/303")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].uri").value("/events/303"));
+    }
+
+    @Test
+    void getStatsCountsRecentHits() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        addHit("/events/401", "10.0.2.1", now.minusMinutes(2).format(StatsUtil.DATE_TIME_FORMATTER));
+        addHit("/events/401", "10.0.2.2", now.minusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER));
+        addHit("/events/401", "10.0.2.2", now.minusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER));
+
+        mvc.perform(get("/stats")
+                        .param("start", now.minusHours(1).format(StatsUtil.DATE_TIME_FORMATTER))
+                        .param("end", now.plusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER))
+                        .param("uris", "/events/401"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(3));
+
+        mvc.perform(get("/stats")
+                        .param("start", now.minusHours(1).format(StatsUtil.DATE_TIME_FORMATTER))
+                        .param("end", now.plusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER))
+                        .param("uris", "/events/401")
+                        .param("unique", "true")
+                        .param("approximate", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(2));
+    }
+
+    @Test
+    void streamStatsWritesTheTopRecentHitsAsNdjson() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        String timestamp = now.minusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER);
+        addHit("/events/601", "10.0.4.1", timestamp);
+        addHit("/events/601", "10.0.4.2", timestamp);
+        addHit("/events/602", "10.0.4.1", timestamp);
+
+        mvc.perform(get("/stats")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("start", now.minusHours(1).format(StatsUtil.DATE_TIME_FORMATTER))
+                        .param("end", now.plusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER))
+                        .param("uris", "/events/601", "/events/602")
+                        .param("top", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"app\":\"ewm-main-service\",\"uri\":\"/events/601\",\"hits\":2}\n"));
+    }
+
+    @Test
+    void jsonAndNdjsonCutAndOrderOldWindowsAlike() throws Exception {
+        addRankedHits("/events/90", "2022-09-06 11:00:00");
+
+        assertSameRowsAsNdjson(OLD_START, OLD_END, "/events/90");
+    }
+
+    @Test
+    void jsonAndNdjsonCutAndOrderRecentWindowsAlike() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        addRankedHits("/events/95", now.minusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER));
+
+        assertSameRowsAsNdjson(now.minusHours(1).format(StatsUtil.DATE_TIME_FORMATTER),
+                now.plusMinutes(1).format(StatsUtil.DATE_TIME_FORMATTER), "/events/95");
+    }
+
+    @Test
+    void streamStatsWithApproximateIsBadRequest() throws Exception {
+        mvc.perform(get("/stats")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("start", OLD_START)
+                        .param("end", OLD_END)
+                        .param("unique", "true")
+                        .param("approximate", "true"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void queryStatsReturnsHitsByEventId() throws Exception {
+        addHit("/events/501", "10.0.3.1", "2022-09-06 11:00:00");
+        addHit("/events/501", "10.0.3.1", "2022-09-06 11:00:01");
+        addHit("/events/502", "10.0.3.1", "2022-09-06 11:00:02");
+
+        mvc.perform(post("/stats/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"start\":\"" + OLD_START + "\",\"end\":\"" + OLD_END + "\"," +
+                                "\"uriPrefix\":\"/events/\",\"ids\":[501,502,503],\"unique\":false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.501").value(2))
+                .andExpect(jsonPath("$.502").value(1))
+                .andExpect(jsonPath("$.503").doesNotExist());
+    }
+
+    @Test
+    void queryStatsWithMalformedStartIsBadRequest() throws Exception {
+        mvc.perform(post("/stats/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"start\":\"2022-09-06T10:00\",\"end\":\"" + OLD_END + "\"," +
+                                "\"uriPrefix\":\"/events/\",\"ids\":[501]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void queryStatsWithoutEndIsBadRequest() throws Exception {
+        mvc.perform(post("/stats/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"start\":\"" + OLD_START + "\",\"uriPrefix\":\"/events/\",\"ids\":[501]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void queryStatsWithTooManyIdsIsBadRequest() throws Exception {
+        String ids = LongStream.rangeClosed(1, StatsQuery.MAX_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+
+        mvc.perform(post("/stats/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"start\":\"" + OLD_START + "\",\"end\":\"" + OLD_END + "\"," +
+                                "\"uriPrefix\":\"/events/\",\"ids\":[" + ids + "]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getStatsWithoutStartIsBadRequest() throws Exception {
+        mvc.perform(get("/stats").param("end", OLD_END))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getStatsWithMalformedStartIsBadRequest() throws Exception {
+        mvc.perform(get("/stats").param("start", "2022-09-06T10:00").param("end", OLD_END))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addHitWithoutUriIsBadRequest() throws Exception {
+        mvc.perform(post("/hit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"app\":\"ewm-main-service\",\"ip\":\"10.0.0.1\",\"timestamp\":\"" + OLD_START + "\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void addHitWithTooLongUriIsBadRequest() throws Exception {
+        mvc.perform(post("/hit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(hit("/events/" + "1".repeat(EndpointHitDto.MAX_URI_LENGTH), "10.0.0.1", OLD_START)))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Adds hits to uris 1 to 4 under the prefix so that uri 1 has the most, uris 3 and 2 tie, and uri 4 has the
+     * fewest, counting either all or unique hits.
+     */
+    private void addRankedHits(String prefix, String timestamp) throws Exception {
+        for (String ip : List.of("10.0.5.1", "10.0.5.2", "10.0.5.3")) {
+            addHit(prefix + 1, ip, timestamp);
+        }
+        for (String ip : List.of("10.0.5.1", "10.0.5.2")) {
+            addHit(prefix + 3, ip, timestamp);
+            addHit(prefix + 2, ip, timestamp);
+        }
+        addHit(prefix + 4, "10.0.5.1", timestamp);
+    }
+
+    private void assertSameRowsAsNdjson(String start, String end, String prefix) throws Exception {
+        String[] uris = {prefix + 1, prefix + 2, prefix + 3, prefix + 4};
+        Map<List<String>, List<String>> expected = Map.of(
+                List.of(), List.of(uris[0], uris[1], uris[2], uris[3]),
+                List.of("top", "2"), List.of(uris[0], uris[1], uris[2]),
+                List.of("limit", "2"), List.of(uris[0], uris[1]),
+                List.of("top", "3", "limit", "1"), List.of(uris[0]));
+
+        for (Map.Entry<List<String>, List<String>> query : expected.entrySet()) {
+            for (boolean unique : List.of(false, true)) {
+                MockHttpServletRequestBuilder json = get("/stats")
+                        .param("start", start)
+                        .param("end", end)
+                        .param("uris", uris)
+                        .param("unique", String.valueOf(unique));
+                MockHttpServletRequestBuilder ndjson = get("/stats")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .param("start", start)
+                        .param("end", end)
+                        .param("uris", uris)
+                        .param("unique", String.valueOf(unique));
+                for (int i = 0; i < query.getKey().size(); i += 2) {
+                    json.param(query.getKey().get(i), query.getKey().get(i + 1));
+                    ndjson.param(query.getKey().get(i), query.getKey().get(i + 1));
+                }
+
+                List<ViewStats> jsonRows = OBJECT_MAPPER.readValue(
+                        mvc.perform(json).andExpect(status().isOk()).andReturn().getResponse().getContentAsString(),
+                        new TypeReference<List<ViewStats>>() {
+                        });
+                List<ViewStats> ndjsonRows = new ArrayList<>();
+                for (String line : mvc.perform(ndjson).andExpect(status().isOk()).andReturn().getResponse()
+                        .getContentAsString().split("\n")) {
+                    ndjsonRows.add(OBJECT_MAPPER.readValue(line, ViewStats.class));
+                }
+
+                String description = query.getKey() + (unique ? " unique" : "");
+                assertEquals(query.getValue(), jsonRows.stream().map(ViewStats::getUri).collect(Collectors.toList()),
+                        description);
+                assertEquals(rows(jsonRows), rows(ndjsonRows), description);
+            }
+        }
+    }
+
+    private static List<String> rows(List<ViewStats> stats) {
+        return stats.stream()
+                .map(viewStats -> viewStats.getApp() + " " + viewStats.getUri() + " " + viewStats.getHits())
+                .collect(Collectors.toList());
+    }
+
+    void addHit(String uri, String ip, String timestamp) throws Exception {
+        mvc.perform(post("/hit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(hit(uri, ip, timestamp)))
+                .andExpect(status().isCreated());
+    }
+
+    private static String hit(String uri, String ip, String timestamp) {
+        return String.format("{\"app\":\"ewm-main-service\",\"uri\":\"%s\",\"ip\":\"%s\",\"timestamp\":\"%s\"}",
+                uri, ip, timestamp);
+    }
+}
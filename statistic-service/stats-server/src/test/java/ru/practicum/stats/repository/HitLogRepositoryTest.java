@@ -0,0 +1,114 @@
+package ru.practicum.stats.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitLogRepositoryTest {
+
+    private static final LocalDateTime SLOT = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    @TempDir
+    Path directory;
+
+    private HitLogRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        repository = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.destroy();
+    }
+
+    @Test
+    void sealBeforeTrimsEndedSlotsAndKeepsTheirHits() throws IOException {
+        repository.append(List.of(
+                hit("/events/1", "10.0.0.1", SLOT.plusMinutes(1)),
+                hit("/events/1", "2001:db8::1", SLOT.plusMinutes(2)),
+                hit("/events/1", "2001:db8::1", SLOT.plusMinutes(3))));
+
+        repository.sealBefore(SLOT.plusHours(1));
+
+        List<Path> files = segmentFiles();
+        assertEquals(1, files.size());
+        assertEquals(HitLogSegment.HEADER_BYTES + 3 * HitLogSegment.RECORD_BYTES, Files.size(files.get(0)));
+        assertEquals(3L, hits(false));
+        assertEquals(2L, hits(true));
+
+        repository.append(List.of(hit("/events/1", "10.0.0.2", SLOT.plusMinutes(4))));
+        assertEquals(2, segmentFiles().size());
+        assertEquals(4L, hits(false));
+
+        repository.destroy();
+        repository = open();
+        assertEquals(4L, hits(false));
+    }
+
+    @Test
+    void sealBeforeKeepsTheCurrentSlotWritable() throws IOException {
+        repository.append(List.of(hit("/events/1", "10.0.0.1", SLOT.plusMinutes(1))));
+
+        repository.sealBefore(SLOT.plusMinutes(30));
+        repository.append(List.of(hit("/events/1", "10.0.0.2", SLOT.plusMinutes(31))));
+
+        assertEquals(1, segmentFiles().size());
+        assertEquals(2L, hits(false));
+    }
+
+    @Test
+    void deleteBeforeRemovesOnlyEndedSlots() throws IOException {
+        repository.append(List.of(
+                hit("/events/1", "10.0.0.1", SLOT.plusMinutes(1)),
+                hit("/events/1", "10.0.0.1", SLOT.plusHours(1).plusMinutes(1))));
+
+        assertEquals(1, repository.deleteBefore(SLOT.plusHours(1).plusMinutes(30)));
+
+        assertEquals(1, segmentFiles().size());
+        assertEquals(1L, hits(false));
+        assertTrue(repository.getStats(SLOT, SLOT.plusMinutes(59), null, false, false).isEmpty());
+    }
+
+    private HitLogRepository open() throws IOException {
+        return new HitLogRepository(directory, Duration.ofHours(1), DataSize.ofKilobytes(64));
+    }
+
+    private long hits(boolean unique) {
+        List<ViewStats> stats = repository.getStats(SLOT, SLOT.plusHours(2), List.of("/events/1"), unique, false);
+        return stats.isEmpty() ? 0 : stats.get(0).getHits();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static EndpointHit hit(String uri, String ip, LocalDateTime timestamp) {
+        return EndpointHit.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip(ip)
+                .timestamp(timestamp)
+                .build();
+    }
+}
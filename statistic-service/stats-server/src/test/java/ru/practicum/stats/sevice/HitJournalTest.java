@@ -0,0 +1,74 @@
+package ru.practicum.stats.sevice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HitJournalTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void syncedHitsAreReadBackAfterAnUncleanStop() throws Exception {
+        HitJournal journal = new HitJournal(directory, 1 << 20);
+        journal.open();
+        HitRingBuffer ring = new HitRingBuffer(1024);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> appends = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String uri = "/events/" + i;
+                appends.add(executor.submit(() -> {
+                    journal.sync(journal.append(ring, hit(uri)));
+                    return null;
+                }));
+            }
+            for (Future<?> append : appends) {
+                append.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        HitJournal reopened = new HitJournal(directory, 1 << 20);
+        List<Path> segments = reopened.findSegments();
+        assertEquals(1, segments.size());
+        assertEquals(100, reopened.read(segments.get(0)).size());
+        journal.close();
+    }
+
+    @Test
+    void appendReturnsMinusOneWhenTheRingIsFull() throws IOException {
+        HitJournal journal = new HitJournal(directory, 1 << 20);
+        journal.open();
+        HitRingBuffer ring = new HitRingBuffer(1);
+
+        assertEquals(1, journal.append(ring, hit("/events/1")));
+        assertEquals(-1, journal.append(ring, hit("/events/2")));
+        journal.close();
+    }
+
+    private static EndpointHit hit(String uri) {
+        return EndpointHit.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("10.0.0.1")
+                .timestamp(TIMESTAMP)
+                .build();
+    }
+}
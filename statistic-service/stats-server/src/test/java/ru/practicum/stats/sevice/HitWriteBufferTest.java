@@ -0,0 +1,131 @@
+package ru.practicum.stats.sevice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitWriteMode;
+import ru.practicum.stats.repository.StatsRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HitWriteBufferTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2022, 9, 6, 11, 0);
+
+    private static final String TOO_LONG_URI = "/events/" + "1".repeat(60);
+
+    @TempDir
+    Path directory;
+
+    private final StatsRepository statsRepository = mock(StatsRepository.class);
+
+    private final List<String> written = new CopyOnWriteArrayList<>();
+
+    private HitWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+    }
+
+    @Test
+    void hitsThatCannotBeWrittenAreDeadLetteredAndTheRestCommitted() throws Exception {
+        when(statsRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<EndpointHit> hits = invocation.getArgument(0);
+            if (hits.stream().anyMatch(hit -> hit.getUri().equals(TOO_LONG_URI))) {
+                throw new DataIntegrityViolationException("value too long for type character varying(50)");
+            }
+            hits.forEach(hit -> written.add(hit.getUri()));
+            return hits.size();
+        });
+        start(HitWriteMode.BUFFERED);
+
+        for (int i = 0; i < 7; i++) {
+            assertTrue(buffer.offer(hit(i == 3 ? TOO_LONG_URI : "/events/" + i)));
+        }
+        awaitWritten(6);
+
+        assertEquals(List.of("/events/0", "/events/1", "/events/2", "/events/4", "/events/5", "/events/6"),
+                written.stream().sorted().collect(Collectors.toList()));
+        Path deadLetterFile = directory.resolve("dead-letter.tsv");
+        assertEquals(List.of(String.join("\t", "ewm-main-service", TOO_LONG_URI, "10.0.0.1", "2022-09-06 11:00:00")),
+                Files.readAllLines(deadLetterFile));
+    }
+
+    @Test
+    void transientFailuresAreRetriedWithoutWritingHitsTwice() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        when(statsRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new TransientDataAccessResourceException("connection reset");
+            }
+            List<EndpointHit> hits = invocation.getArgument(0);
+            hits.forEach(hit -> written.add(hit.getUri()));
+            return hits.size();
+        });
+        start(HitWriteMode.BUFFERED);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.offer(hit("/events/" + i)));
+        }
+        awaitWritten(5);
+        Thread.sleep(50);
+
+        assertEquals(5, written.size());
+        assertTrue(Files.notExists(directory.resolve("dead-letter.tsv")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void start(HitWriteMode mode) {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(new SimpleTransactionStatus());
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        buffer = new HitWriteBuffer(statsRepository, mock(HitRollupService.class), mock(StatsResultCache.class),
+                mock(RecentHitIndex.class), transactionTemplate, new SimpleMeterRegistry(), mode, 1024, 100,
+                Duration.ofMillis(10), directory.resolve("journal"), DataSize.ofMegabytes(1),
+                directory.resolve("dead-letter.tsv"));
+        buffer.start();
+    }
+
+    private void awaitWritten(int hits) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (written.size() < hits && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static EndpointHit hit(String uri) {
+        return EndpointHit.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("10.0.0.1")
+                .timestamp(TIMESTAMP)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.stats.sevice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.common.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatsResultCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2022, 9, 6, 10, 0);
+
+    private static final LocalDateTime END = LocalDateTime.of(2022, 9, 6, 12, 0);
+
+    private static final LocalDateTime NEXT_DAY = START.plusDays(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void lateHitEvictsOnlyTheWindowsAndUrisItFallsInto() {
+        StatsResultCache cache = cache(Duration.ofMinutes(10));
+        get(cache, START, END, List.of("/events/1"));
+        get(cache, START, END, List.of("/events/2"));
+        get(cache, START, END, null);
+        get(cache, NEXT_DAY, NEXT_DAY.plusHours(2), List.of("/events/1"));
+        assertEquals(4, loads.get());
+
+        cache.onHits(List.of(hit("/events/1", START.plusHours(1))));
+
+        get(cache, START, END, List.of("/events/1"));
+        get(cache, START, END, List.of("/events/2"));
+        get(cache, START, END, null);
+        get(cache, NEXT_DAY, NEXT_DAY.plusHours(2), List.of("/events/1"));
+        assertEquals(6, loads.get());
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        StatsResultCache cache = cache(Duration.ofMillis(50));
+        get(cache, START, END, null);
+
+        Thread.sleep(100);
+        get(cache, START, END, null);
+
+        assertEquals(2, loads.get());
+    }
+
+    private StatsResultCache cache(Duration ttl) {
+        return new StatsResultCache(true, 100, Duration.ofMinutes(5), ttl, new SimpleMeterRegistry());
+    }
+
+    private void get(StatsResultCache cache, LocalDateTime start, LocalDateTime end, List<String> uris) {
+        cache.get(start, end, uris, false, false, () -> {
+            loads.incrementAndGet();
+            return List.of(new ViewStats("ewm-main-service", "/events/1", 1L));
+        });
+    }
+
+    private static EndpointHit hit(String uri, LocalDateTime timestamp) {
+        return EndpointHit.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("10.0.0.1")
+                .timestamp(timestamp)
+                .build();
+    }
+}